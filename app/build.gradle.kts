@@ -27,11 +27,22 @@ android {
                 "proguard-rules.pro"
             )
         }
+        // Release code, debug-signed, for the :benchmark module
+        create("benchmark") {
+            initWith(getByName("release"))
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+            isDebuggable = false
+        }
     }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_17
         targetCompatibility = JavaVersion.VERSION_17
     }
+    buildFeatures {
+        // BuildConfig.BUILD_TYPE gates the benchmark-only hooks
+        buildConfig = true
+    }
 }
 
 dependencies {
@@ -0,0 +1,94 @@
+package com.gratus.retrack;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Single-pass analytics over 100k rows against materializing every row as a RelapseLog
+ * first, which is what the old full-list read costs before any number is computed.
+ * Timings are logged under "AnalyticsBenchmark"; the primitive pass must be faster.
+ */
+@RunWith(AndroidJUnit4.class)
+public class AnalyticsBenchmarkTest {
+
+    private static final String TAG = "AnalyticsBenchmark";
+    private static final String DB_NAME = "analytics_benchmark_test.db";
+    private static final long TRACKER = RelapseDbHelper.DEFAULT_TRACKER_ID;
+    private static final int ROWS = 100_000;
+    private static final int RUNS = 5;
+
+    private Context context;
+    private RelapseDbHelper helper;
+
+    @Before
+    public void seed() throws IOException {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        helper = new RelapseDbHelper(context, DB_NAME);
+
+        Random random = new Random(19);
+        long[] next = {1_300_000_000_000L};
+        int[] produced = {0};
+        helper.importRelapses(TRACKER, () -> {
+            if (produced[0]++ >= ROWS) return null;
+            long start = next[0];
+            long end = start + 60_000L + random.nextInt(2_000_000_000);
+            next[0] = end;
+            return new RelapseLog(start, end, end - start, "reason", "steps");
+        });
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void singlePassBeatsObjectList() {
+        RelapseAnalytics analytics = helper.getAnalytics(TRACKER);
+        assertEquals(ROWS, analytics.count);
+        assertEquals(ROWS, analytics.rollingAverage.length);
+
+        long pass = medianMs(helper::getAnalytics);
+        long objects = medianMs(() -> {
+            // Durations only, the cheapest thing the old list path could compute
+            List<RelapseLog> all = helper.getAllRelapses(TRACKER);
+            long[] durations = new long[all.size()];
+            for (int i = 0; i < durations.length; i++) {
+                durations[i] = all.get(i).duration;
+            }
+            Arrays.sort(durations);
+        });
+        Log.i(TAG, ROWS + " rows: single pass " + pass + "ms, RelapseLog list " + objects + "ms");
+        assertTrue("single pass " + pass + "ms vs list " + objects + "ms", pass < objects);
+    }
+
+    private static long medianMs(Runnable run) {
+        run.run(); // Warm the page cache
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            run.run();
+            times[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+}
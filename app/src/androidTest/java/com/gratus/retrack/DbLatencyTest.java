@@ -0,0 +1,119 @@
+package com.gratus.retrack;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Per-operation latency of the shared helper (one connection, WAL, compiled statements)
+ * against the old pattern of opening the file, running a raw query and closing it on every
+ * call. Timings are logged under "DbLatency"; the shared path must win on every operation.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DbLatencyTest {
+
+    private static final String TAG = "DbLatency";
+    private static final String DB_NAME = "db_latency_test.db";
+    private static final long TRACKER = RelapseDbHelper.DEFAULT_TRACKER_ID;
+    private static final int ROWS = 200;
+    private static final int RUNS = 41;
+    private static final long HOUR_MS = 60L * 60 * 1000;
+
+    private Context context;
+    private RelapseDbHelper helper;
+    private String path;
+    private long nextStart = 1_700_000_000_000L;
+
+    @Before
+    public void seed() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        helper = new RelapseDbHelper(context, DB_NAME);
+        for (int i = 0; i < ROWS; i++) {
+            insertShared();
+        }
+        path = helper.getReadableDatabase().getPath();
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void sharedConnectionBeatsOpenClosePerCall() {
+        compare("addRelapse", this::insertShared, this::insertOpenClose);
+        compare("hasRecords", helper::hasRecords,
+                () -> openClose("SELECT COUNT(*) FROM relapse_history"));
+        compare("getBestStreakDuration", helper::getBestStreakDuration,
+                () -> openClose("SELECT MAX(streak_duration_ms) FROM relapse_history"));
+        compare("getAllRelapses", helper::getAllRelapses,
+                () -> openClose("SELECT * FROM relapse_history ORDER BY streak_end_ts DESC"));
+    }
+
+    private void compare(String operation, Runnable shared, Runnable openClose) {
+        long after = medianUs(shared);
+        long before = medianUs(openClose);
+        Log.i(TAG, operation + ": open/close per call " + before + "us, shared " + after + "us");
+        assertTrue(operation + " shared " + after + "us vs " + before + "us", after < before);
+    }
+
+    private void insertShared() {
+        long end = nextStart + 5 * HOUR_MS;
+        helper.addRelapse(TRACKER, nextStart, end, "tired", "sleep early");
+        nextStart = end;
+    }
+
+    // The pre-singleton write: fresh connection, autocommit insert, close
+    private void insertOpenClose() {
+        long end = nextStart + 5 * HOUR_MS;
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(path, null, SQLiteDatabase.OPEN_READWRITE);
+        ContentValues values = new ContentValues();
+        values.put("streak_start_ts", nextStart);
+        values.put("streak_end_ts", end);
+        values.put("streak_duration_ms", end - nextStart);
+        values.put("why_it_happened", "tired");
+        values.put("next_steps", "sleep early");
+        db.insert("relapse_history", null, values);
+        db.close();
+        nextStart = end;
+    }
+
+    // The pre-singleton read: fresh connection, uncompiled query, close
+    private void openClose(String sql) {
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(path, null, SQLiteDatabase.OPEN_READONLY);
+        Cursor cursor = db.rawQuery(sql, null);
+        while (cursor.moveToNext()) {
+            cursor.getLong(0);
+        }
+        cursor.close();
+        db.close();
+    }
+
+    private static long medianUs(Runnable operation) {
+        operation.run(); // Warm up
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            operation.run();
+            times[i] = (System.nanoTime() - start) / 1000;
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+}
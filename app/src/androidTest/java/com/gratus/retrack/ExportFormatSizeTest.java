@@ -0,0 +1,116 @@
+package com.gratus.retrack;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.gratus.retrack.helpers.DatabaseExporter;
+import com.gratus.retrack.helpers.DatabaseExporter.TextFormat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Size and write time of every text export format against the raw .db snapshot, over
+ * 20k generated rows. Results are logged under "ExportFormatSize"; each gzipped text
+ * export must come out smaller than its plain version and than the .db copy.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ExportFormatSizeTest {
+
+    private static final String TAG = "ExportFormatSize";
+    private static final String DB_NAME = "export_format_size_test.db";
+    private static final long TRACKER = RelapseDbHelper.DEFAULT_TRACKER_ID;
+    private static final int ROWS = 20_000;
+
+    private static final String[] WORDS = {
+            "tired", "bored", "stress", "work", "late", "night", "alone", "phone", "scrolling", "argument",
+            "walk", "journal", "sleep", "early", "call", "friend", "gym", "water", "breathe", "plan"
+    };
+
+    private static final DatabaseExporter.Listener IGNORE = new DatabaseExporter.Listener() {
+        @Override public void onProgress(long bytesWritten, long totalBytes) { }
+        @Override public void onComplete() { }
+        @Override public void onError(Exception e) { }
+    };
+
+    private Context context;
+    private RelapseDbHelper helper;
+    private File out;
+
+    @Before
+    public void seed() throws IOException {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        helper = new RelapseDbHelper(context, DB_NAME);
+        out = new File(context.getCacheDir(), "export_format_size.out");
+
+        Random random = new Random(11);
+        long[] next = {1_600_000_000_000L};
+        int[] produced = {0};
+        helper.importRelapses(TRACKER, () -> {
+            if (produced[0]++ >= ROWS) return null;
+            long start = next[0];
+            long end = start + 3_600_000L + random.nextInt(1_000_000_000);
+            next[0] = end;
+            return new RelapseLog(start, end, end - start, sentence(random, 12), sentence(random, 8));
+        });
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        context.deleteDatabase(DB_NAME);
+        //noinspection ResultOfMethodCallIgnored
+        out.delete();
+    }
+
+    @Test
+    public void compressedTextIsSmallerThanTheDatabase() throws IOException {
+        long start = System.nanoTime();
+        helper.snapshotTo(out);
+        long dbMs = (System.nanoTime() - start) / 1_000_000;
+        long dbBytes = out.length();
+        Log.i(TAG, ".db snapshot: " + (dbBytes >> 10) + " KB in " + dbMs + "ms (" + ROWS + " rows)");
+
+        DatabaseExporter exporter = new DatabaseExporter(context);
+        for (TextFormat format : TextFormat.values()) {
+            long plain = write(exporter, format, false);
+            long gzipped = write(exporter, format, true);
+            assertTrue(format + " gzip " + gzipped + " vs plain " + plain, gzipped < plain);
+            assertTrue(format + " gzip " + gzipped + " vs .db " + dbBytes, gzipped < dbBytes);
+        }
+    }
+
+    private long write(DatabaseExporter exporter, TextFormat format, boolean gzip) throws IOException {
+        long start = System.nanoTime();
+        try (Cursor cursor = helper.queryHistoryChronological(TRACKER)) {
+            exporter.writeHistory(cursor, format, gzip, new FileOutputStream(out), ROWS, IGNORE);
+        }
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        long bytes = out.length();
+        Log.i(TAG, format + (gzip ? " gzip" : "") + ": " + (bytes >> 10) + " KB in " + ms + "ms");
+        return bytes;
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,151 @@
+package com.gratus.retrack;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.gratus.retrack.helpers.DatabaseExporter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Export of a 50 MB database: the old 1 KB FileInputStream loop over the live file against
+ * the 256 KB channel copy DatabaseExporter uses, and the full snapshot + copy path.
+ * Timings are logged under "ExportThroughput"; the chunked copy must beat the 1 KB loop.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ExportThroughputTest {
+
+    private static final String TAG = "ExportThroughput";
+    private static final String DB_NAME = "export_throughput_test.db";
+    private static final long TRACKER = RelapseDbHelper.DEFAULT_TRACKER_ID;
+    private static final long TARGET_BYTES = 50L * 1024 * 1024;
+    private static final int ROWS_PER_ROUND = 5_000;
+    private static final int RUNS = 5;
+
+    private interface Copy {
+        void run() throws IOException;
+    }
+
+    private static final DatabaseExporter.Listener IGNORE = new DatabaseExporter.Listener() {
+        @Override public void onProgress(long bytesWritten, long totalBytes) { }
+        @Override public void onComplete() { }
+        @Override public void onError(Exception e) { }
+    };
+
+    private Context context;
+    private RelapseDbHelper helper;
+    private File dbFile;
+    private File snapshot;
+    private File out;
+
+    @Before
+    public void seed() throws IOException {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        helper = new RelapseDbHelper(context, DB_NAME);
+        dbFile = new File(helper.getWritableDatabase().getPath());
+        snapshot = new File(context.getCacheDir(), "export_throughput_snapshot.db");
+        out = new File(context.getCacheDir(), "export_throughput_out.db");
+
+        // Long free-text notes until the main file passes 50 MB
+        Random random = new Random(7);
+        long[] next = {1_500_000_000_000L};
+        while (dbFile.length() < TARGET_BYTES) {
+            int[] produced = {0};
+            helper.importRelapses(TRACKER, () -> {
+                if (produced[0]++ >= ROWS_PER_ROUND) return null;
+                long start = next[0];
+                long end = start + 3_600_000L + random.nextInt(100_000_000);
+                next[0] = end;
+                return new RelapseLog(start, end, end - start, text(random, 1024), text(random, 512));
+            });
+            helper.getWritableDatabase().rawQuery("PRAGMA wal_checkpoint(TRUNCATE)", null).close();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        context.deleteDatabase(DB_NAME);
+        //noinspection ResultOfMethodCallIgnored
+        snapshot.delete();
+        //noinspection ResultOfMethodCallIgnored
+        out.delete();
+    }
+
+    @Test
+    public void chunkedCopyBeatsOneKilobyteLoop() throws IOException {
+        DatabaseExporter exporter = new DatabaseExporter(context);
+        long bytes = dbFile.length();
+
+        long before = medianMs(() -> {
+            try (InputStream in = new FileInputStream(dbFile);
+                 OutputStream os = new FileOutputStream(out)) {
+                byte[] buffer = new byte[1024];
+                int length;
+                while ((length = in.read(buffer)) > 0) {
+                    os.write(buffer, 0, length);
+                }
+            }
+        });
+        long chunked = medianMs(() -> {
+            try (OutputStream os = new FileOutputStream(out)) {
+                exporter.copyWithProgress(dbFile, os, IGNORE);
+            }
+        });
+        assertEquals(bytes, out.length());
+        long full = medianMs(() -> {
+            helper.snapshotTo(snapshot);
+            try (OutputStream os = new FileOutputStream(out)) {
+                exporter.copyWithProgress(snapshot, os, IGNORE);
+            }
+        });
+
+        Log.i(TAG, (bytes >> 20) + " MB: 1 KB loop " + before + "ms (" + mbPerSec(bytes, before) + " MB/s)"
+                + ", 256 KB channel " + chunked + "ms (" + mbPerSec(bytes, chunked) + " MB/s)"
+                + ", snapshot + copy " + full + "ms");
+        assertTrue("chunked " + chunked + "ms vs 1 KB loop " + before + "ms", chunked < before);
+    }
+
+    private static long mbPerSec(long bytes, long ms) {
+        return ms == 0 ? 0 : (bytes >> 20) * 1000 / ms;
+    }
+
+    private static long medianMs(Copy copy) throws IOException {
+        copy.run(); // Warm the page cache
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            copy.run();
+            times[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+
+    private static String text(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(random.nextInt(8) == 0 ? ' ' : (char) ('a' + random.nextInt(26)));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,105 @@
+package com.gratus.retrack;
+
+import android.app.Instrumentation;
+
+import androidx.fragment.app.DialogFragment;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The second open of the history sheet must be served from RelapseCache: its hit counter
+ * moves and its miss counter does not, i.e. no stats or head-page read reaches the DB.
+ * Also checks that a read racing an invalidation or a tracker switch is not put back into the cache.
+ */
+@RunWith(AndroidJUnit4.class)
+public class HistoryCacheTest {
+
+    private static final long TRACKER = RelapseDbHelper.DEFAULT_TRACKER_ID;
+
+    private final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+
+    @Test
+    public void secondSheetOpenIsServedFromCache() throws Exception {
+        RelapseRepository repository = RelapseRepository.getInstance(instrumentation.getTargetContext());
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            openAndClose(scenario, repository);
+            long hits = repository.getCacheHits();
+            long misses = repository.getCacheMisses();
+
+            openAndClose(scenario, repository);
+            assertEquals("cache misses on the second open", misses, repository.getCacheMisses());
+            assertTrue("no cache hits on the second open", repository.getCacheHits() > hits);
+        }
+    }
+
+    @Test
+    public void readStampedBeforeInvalidateIsDropped() {
+        RelapseCache cache = new RelapseCache();
+        List<RelapseLog> page = new ArrayList<>();
+        page.add(new RelapseLog(0, 1_000, 1_000, "stale", null));
+
+        long readAt = cache.getGeneration();
+        cache.invalidate(); // An import landed between the read and the put
+        cache.putHead(TRACKER, page, RelapseCache.HEAD_CAPACITY, readAt);
+        cache.putStats(TRACKER, new RelapseStats(), readAt);
+        assertNull(cache.getHead(TRACKER, RelapseCache.HEAD_CAPACITY));
+        assertNull(cache.getStats(TRACKER));
+
+        cache.putHead(TRACKER, page, RelapseCache.HEAD_CAPACITY, cache.getGeneration());
+        assertEquals(1, cache.getHead(TRACKER, RelapseCache.HEAD_CAPACITY).size());
+    }
+
+    @Test
+    public void readForPreviousTrackerIsDropped() {
+        RelapseCache cache = new RelapseCache();
+        List<RelapseLog> page = new ArrayList<>();
+        page.add(new RelapseLog(0, 1_000, 1_000, "other tracker", null));
+        long other = TRACKER + 1;
+
+        long readAt = cache.getGeneration();
+        cache.setTracker(other); // The user switched while the default tracker's page was read
+        cache.putHead(TRACKER, page, RelapseCache.HEAD_CAPACITY, readAt);
+        cache.putHead(TRACKER, page, RelapseCache.HEAD_CAPACITY, cache.getGeneration());
+        assertNull(cache.getHead(other, RelapseCache.HEAD_CAPACITY));
+
+        cache.onInsert(TRACKER, page.get(0)); // A reset still landing on the old tracker
+        cache.putHead(other, new ArrayList<>(), RelapseCache.HEAD_CAPACITY, cache.getGeneration());
+        assertEquals(0, cache.getHead(other, RelapseCache.HEAD_CAPACITY).size());
+    }
+
+    private void openAndClose(ActivityScenario<MainActivity> scenario, RelapseRepository repository)
+            throws InterruptedException {
+        scenario.onActivity(activity -> activity.findViewById(R.id.history_space).performClick());
+        instrumentation.waitForIdleSync();
+        drain(repository);
+
+        scenario.onActivity(activity -> {
+            DialogFragment sheet = (DialogFragment) activity.getSupportFragmentManager()
+                    .findFragmentByTag("HistorySheet");
+            if (sheet != null) sheet.dismissNow();
+        });
+        instrumentation.waitForIdleSync();
+    }
+
+    // Queued behind everything the sheet asked for, the worker runs jobs in order.
+    // Rollups are not cached, so the sentinel itself leaves both counters alone.
+    private void drain(RelapseRepository repository) throws InterruptedException {
+        CountDownLatch drained = new CountDownLatch(1);
+        repository.getDailyRollups(0, 0, cells -> drained.countDown());
+        assertTrue(drained.await(10, TimeUnit.SECONDS));
+        instrumentation.waitForIdleSync();
+    }
+}
@@ -0,0 +1,81 @@
+package com.gratus.retrack;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * What the history sheet waits for before its first frame, at 10k and 100k rows: the old
+ * SELECT * of every row against the first keyset page plus its formatting.
+ * Timings are logged under "HistoryOpen"; the first page must not grow with the table.
+ */
+@RunWith(AndroidJUnit4.class)
+public class HistoryOpenBenchmarkTest {
+
+    private static final String TAG = "HistoryOpen";
+    private static final String DB_NAME = "history_open_test.db";
+    private static final long TRACKER = RelapseDbHelper.DEFAULT_TRACKER_ID;
+    private static final int RUNS = 5;
+    private static final long HOUR_MS = 60L * 60 * 1000;
+    private static final long FIRST_PAGE_BUDGET_MS = 30;
+
+    @Test
+    public void firstPageStaysFlatAsHistoryGrows() throws Exception {
+        long[] small = measure(10_000);
+        long[] large = measure(100_000);
+        Log.i(TAG, "10k rows: load all " + small[0] + "ms, first page " + small[1] + "ms");
+        Log.i(TAG, "100k rows: load all " + large[0] + "ms, first page " + large[1] + "ms");
+        assertTrue("first page at 100k took " + large[1] + "ms", large[1] <= FIRST_PAGE_BUDGET_MS);
+        assertTrue(large[1] < large[0]);
+    }
+
+    // {load everything, first page}, median ms
+    private static long[] measure(int rows) throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        RelapseDbHelper helper = new RelapseDbHelper(context, DB_NAME);
+        try {
+            long[] next = {1_600_000_000_000L};
+            int[] produced = {0};
+            helper.importRelapses(TRACKER, () -> {
+                if (produced[0]++ >= rows) return null;
+                long start = next[0];
+                next[0] = start + 5 * HOUR_MS;
+                return new RelapseLog(start, next[0], 5 * HOUR_MS, "tired after work", "- walk\n- sleep early");
+            });
+
+            long all = medianMs(() -> assertEquals(rows, helper.getAllRelapses(TRACKER).size()));
+            long page = medianMs(() -> {
+                List<RelapseLog> logs = helper.getRelapsesOlderThan(TRACKER, Long.MAX_VALUE, Long.MAX_VALUE, HistoryPager.PAGE_SIZE);
+                HistoryRow.buildPage(logs, helper.getStats(TRACKER).resetCount);
+            });
+            return new long[]{all, page};
+        } finally {
+            helper.close();
+            context.deleteDatabase(DB_NAME);
+        }
+    }
+
+    private static long medianMs(Runnable open) {
+        open.run(); // Warm the page cache
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            open.run();
+            times[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+}
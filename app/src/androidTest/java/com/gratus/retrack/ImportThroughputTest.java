@@ -0,0 +1,105 @@
+package com.gratus.retrack;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Rows per second of the batched import against one addRelapse transaction per row, and a
+ * check that the aggregates folded during the import equal a from-scratch rebuild.
+ * Timings are logged under "ImportThroughput"; the batched import must be faster.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ImportThroughputTest {
+
+    private static final String TAG = "ImportThroughput";
+    private static final String DB_NAME = "import_throughput_test.db";
+    private static final long TRACKER = RelapseDbHelper.DEFAULT_TRACKER_ID;
+    private static final int IMPORT_ROWS = 100_000;
+    private static final int PER_ROW_ROWS = 5_000; // The per-row path is far too slow for 100k
+
+    private Context context;
+    private RelapseDbHelper helper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        helper = new RelapseDbHelper(context, DB_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void batchedImportBeatsPerRowInserts() throws IOException {
+        Random random = new Random(3);
+        long[] next = {1_400_000_000_000L};
+
+        long start = System.nanoTime();
+        for (int i = 0; i < PER_ROW_ROWS; i++) {
+            RelapseLog log = nextLog(random, next);
+            helper.addRelapse(TRACKER, log.startTime, log.endTime, log.reason, log.nextSteps);
+        }
+        long perRowMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+
+        int[] produced = {0};
+        start = System.nanoTime();
+        int inserted = helper.importRelapses(TRACKER, () -> produced[0]++ < IMPORT_ROWS ? nextLog(random, next) : null);
+        long importMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        assertEquals(IMPORT_ROWS, inserted);
+
+        long perRowRate = PER_ROW_ROWS * 1000L / perRowMs;
+        long importRate = IMPORT_ROWS * 1000L / importMs;
+        Log.i(TAG, "addRelapse per row " + perRowRate + " rows/s (" + PER_ROW_ROWS + " rows, " + perRowMs + "ms)"
+                + ", importRelapses " + importRate + " rows/s (" + IMPORT_ROWS + " rows, " + importMs + "ms)");
+        assertTrue("import " + importRate + " rows/s vs per row " + perRowRate, importRate > perRowRate);
+
+        // Folded per batch, the aggregates must already match a full rebuild
+        RelapseStats folded = helper.getStats(TRACKER);
+        SQLiteDatabase db = helper.getReadableDatabase();
+        long firstDay = DatabaseUtils.longForQuery(db, "SELECT MIN(day) FROM relapse_daily WHERE tracker_id = 1", null);
+        long lastDay = DatabaseUtils.longForQuery(db, "SELECT MAX(day) FROM relapse_daily WHERE tracker_id = 1", null);
+        RollupCells days = helper.getDailyRollups(TRACKER, firstDay, lastDay);
+        helper.rebuildStats();
+        helper.rebuildRollups();
+        RelapseStats rebuilt = helper.getStats(TRACKER);
+        RollupCells rebuiltDays = helper.getDailyRollups(TRACKER, firstDay, lastDay);
+        assertEquals(PER_ROW_ROWS + IMPORT_ROWS, folded.resetCount);
+        assertEquals(rebuilt.resetCount, folded.resetCount);
+        assertEquals(rebuilt.totalDuration, folded.totalDuration);
+        assertEquals(rebuilt.bestDuration, folded.bestDuration);
+        assertEquals(rebuilt.medianDuration, folded.medianDuration);
+        assertEquals(rebuilt.lastEndTime, folded.lastEndTime);
+        assertEquals(rebuiltDays.size(), days.size());
+        for (int i = 0; i < days.size(); i++) {
+            assertEquals(rebuiltDays.cleanMs[i], days.cleanMs[i]);
+            assertEquals(rebuiltDays.resets[i], days.resets[i]);
+        }
+    }
+
+    private static RelapseLog nextLog(Random random, long[] next) {
+        long start = next[0];
+        long end = start + 3_600_000L + random.nextInt(500_000_000);
+        next[0] = end;
+        return new RelapseLog(start, end, end - start, "imported " + random.nextInt(1000), "plan " + random.nextInt(1000));
+    }
+}
@@ -0,0 +1,94 @@
+package com.gratus.retrack;
+
+import android.app.Instrumentation;
+import android.os.Build;
+import android.os.StrictMode;
+import android.os.strictmode.Violation;
+import android.util.Log;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Cold start, first render and opening the history sheet must not touch SQLite on the main
+ * looper. Two layers enforce it: the helper's main-thread guard throws on any call, and a
+ * StrictMode disk policy records every violation whose stack goes through android.database.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MainThreadDbAccessTest {
+
+    private static final String TAG = "MainThreadDbAccess";
+
+    private final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+    private final List<Violation> dbViolations = new ArrayList<>();
+    private StrictMode.ThreadPolicy previousPolicy;
+
+    @Before
+    public void enforce() {
+        // Listener-based StrictMode penalties exist from API 28
+        assumeTrue(Build.VERSION.SDK_INT >= Build.VERSION_CODES.P);
+        RelapseDbHelper.setMainThreadAccessForbidden(true);
+        instrumentation.runOnMainSync(() -> {
+            previousPolicy = StrictMode.getThreadPolicy();
+            StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                    .detectDiskReads()
+                    .detectDiskWrites()
+                    .penaltyListener(Runnable::run, violation -> {
+                        if (Log.getStackTraceString(violation).contains("android.database")) {
+                            dbViolations.add(violation);
+                        }
+                    })
+                    .build());
+        });
+    }
+
+    @After
+    public void restore() {
+        if (previousPolicy != null) {
+            instrumentation.runOnMainSync(() -> StrictMode.setThreadPolicy(previousPolicy));
+        }
+    }
+
+    @Test
+    public void guardRejectsMainThreadCalls() {
+        boolean[] threw = {false};
+        instrumentation.runOnMainSync(() -> {
+            try {
+                RelapseDbHelper.getInstance(instrumentation.getTargetContext()).hasRecords(RelapseDbHelper.DEFAULT_TRACKER_ID);
+            } catch (IllegalStateException expected) {
+                threw[0] = true;
+            }
+        });
+        assertTrue("main-thread DB call was allowed", threw[0]);
+    }
+
+    @Test
+    public void startupAndHistorySheetStayOffTheMainThread() throws Exception {
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            scenario.onActivity(activity -> activity.findViewById(R.id.history_space).performClick());
+            instrumentation.waitForIdleSync();
+
+            // Queued behind everything the activity and the sheet asked for
+            CountDownLatch drained = new CountDownLatch(1);
+            RelapseRepository.getInstance(instrumentation.getTargetContext())
+                    .getStats(stats -> drained.countDown());
+            assertTrue(drained.await(10, TimeUnit.SECONDS));
+            instrumentation.waitForIdleSync();
+        }
+        assertTrue("DB access on the main thread: " + dbViolations, dbViolations.isEmpty());
+    }
+}
@@ -0,0 +1,108 @@
+package com.gratus.retrack;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A reset writes the history row and the new streak start in one commit. Measures that commit
+ * with synchronous=NORMAL under WAL (what the helper configures) against FULL, and checks that
+ * journey recovery is a single rowid lookup. Timings are logged under "ResetCommit".
+ */
+@RunWith(AndroidJUnit4.class)
+public class ResetCommitTest {
+
+    private static final String TAG = "ResetCommit";
+    private static final String DB_NAME = "reset_commit_test.db";
+    private static final long TRACKER = RelapseDbHelper.DEFAULT_TRACKER_ID;
+    private static final int RUNS = 41;
+    private static final long BUDGET_US = 10_000;
+    private static final long HOUR_MS = 60L * 60 * 1000;
+
+    private Context context;
+    private RelapseDbHelper helper;
+    private long nextStart = 1_700_000_000_000L;
+
+    @Before
+    public void open() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        helper = new RelapseDbHelper(context, DB_NAME);
+        helper.startJourney(TRACKER, nextStart);
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void resetCommitsHistoryAndStartTogether() {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        assertEquals("journal", "wal", DatabaseUtils.stringForQuery(db, "PRAGMA journal_mode", null).toLowerCase());
+        assertEquals("synchronous", 1, DatabaseUtils.longForQuery(db, "PRAGMA synchronous", null)); // NORMAL
+
+        long normal = medianResetUs();
+        db.execSQL("PRAGMA synchronous = FULL");
+        long full = medianResetUs();
+        db.execSQL("PRAGMA synchronous = NORMAL");
+
+        Log.i(TAG, "reset commit median: NORMAL " + normal + "us, FULL " + full + "us");
+        assertTrue("Reset commit took " + normal + "us", normal <= BUDGET_US);
+        assertEquals(2 * (RUNS + 1), helper.getRelapseCount(TRACKER));
+    }
+
+    @Test
+    public void recoveryIsOneRowidLookup() {
+        Cursor plan = helper.getReadableDatabase().rawQuery(
+                "EXPLAIN QUERY PLAN SELECT id, name, created_ts, start_ts, is_running FROM trackers WHERE id = ?",
+                new String[]{String.valueOf(RelapseDbHelper.DEFAULT_TRACKER_ID)});
+        StringBuilder detail = new StringBuilder();
+        while (plan.moveToNext()) {
+            detail.append(plan.getString(plan.getColumnCount() - 1));
+        }
+        plan.close();
+        assertTrue(detail.toString(), detail.toString().contains("INTEGER PRIMARY KEY"));
+
+        reset();
+        Tracker tracker = helper.getTracker(TRACKER);
+        assertTrue(tracker.running);
+        assertEquals(nextStart, tracker.startTime);
+    }
+
+    private long medianResetUs() {
+        reset(); // Compiles the statements and warms the WAL
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            reset();
+            times[i] = (System.nanoTime() - start) / 1000;
+        }
+        assertEquals(nextStart, helper.getTracker(TRACKER).startTime);
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+
+    // What onRelapseConfirmed commits: the finished streak, then the next one starts at its end
+    private void reset() {
+        long end = nextStart + 5 * HOUR_MS;
+        helper.addRelapse(TRACKER, nextStart, end, "tired", "sleep early");
+        nextStart = end;
+    }
+}
@@ -0,0 +1,253 @@
+package com.gratus.retrack;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.gratus.retrack.helpers.CalendarDays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 20 years of synthetic history written through addRelapse. The incrementally maintained
+ * rollups must equal an independent day-by-day expansion of the streaks with
+ * java.util.Calendar (not CalendarDays) as well as a bulk rebuild, also after the device
+ * time zone changes, and a year of heatmap cells must be a fast range read.
+ * Timings are logged under "Rollups".
+ */
+@RunWith(AndroidJUnit4.class)
+public class RollupTest {
+
+    private static final String TAG = "Rollups";
+    private static final String DB_NAME = "rollup_test.db";
+    private static final long TRACKER = RelapseDbHelper.DEFAULT_TRACKER_ID;
+    private static final long HOUR_MS = 60L * 60 * 1000;
+    private static final long FROM = 1_262_304_000_000L; // 2010-01-01 UTC
+    private static final long YEARS = 20;
+    private static final int RUNS = 7;
+    private static final long YEAR_READ_BUDGET_MS = 10;
+
+    private Context context;
+    private RelapseDbHelper helper;
+    private long lastEnd;
+
+    @Before
+    public void seed() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        helper = new RelapseDbHelper(context, DB_NAME);
+
+        Random random = new Random(11);
+        long start = FROM;
+        while (start < FROM + YEARS * 365 * CalendarDays.DAY_MS) {
+            long length = random.nextInt(10) == 0
+                    ? random.nextInt(120) * CalendarDays.DAY_MS
+                    : random.nextInt(96) * HOUR_MS + random.nextInt(3_600_000);
+            long end = start + length;
+            helper.addRelapse(TRACKER, start, end, null, null);
+            lastEnd = end;
+            start = end + random.nextInt(60_000);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void incrementalRollupsMatchRebuild() {
+        TimeZone zone = TimeZone.getDefault();
+        long firstDay = CalendarDays.epochDay(FROM, zone);
+        long lastDay = CalendarDays.epochDay(lastEnd, zone);
+        RollupCells daily = helper.getDailyRollups(TRACKER, firstDay, lastDay);
+        RollupCells monthly = helper.getMonthlyRollups(TRACKER, CalendarDays.monthOf(firstDay), CalendarDays.monthOf(lastDay));
+
+        // Every ms of every streak is in exactly one day and one month
+        long totalDuration = DatabaseUtils.longForQuery(helper.getReadableDatabase(),
+                "SELECT SUM(streak_duration_ms) FROM relapse_history", null);
+        assertEquals(totalDuration, Arrays.stream(daily.cleanMs).sum());
+        assertEquals(totalDuration, Arrays.stream(monthly.cleanMs).sum());
+        assertEquals(helper.getRelapseCount(TRACKER), Arrays.stream(daily.resets).sum());
+        assertEquals(helper.getRelapseCount(TRACKER), Arrays.stream(monthly.resets).sum());
+        assertEquals(countResetDays(), DatabaseUtils.longForQuery(helper.getReadableDatabase(),
+                "SELECT SUM(reset_days) FROM relapse_monthly", null));
+        assertMatchesExpansion(zone);
+
+        Map<Long, Long> resetDays = readResetDays();
+        helper.rebuildRollups();
+        RollupCells rebuiltDaily = helper.getDailyRollups(TRACKER, firstDay, lastDay);
+        RollupCells rebuiltMonthly = helper.getMonthlyRollups(TRACKER, CalendarDays.monthOf(firstDay), CalendarDays.monthOf(lastDay));
+        assertArrayEquals(rebuiltDaily.cleanMs, daily.cleanMs);
+        assertArrayEquals(rebuiltDaily.resets, daily.resets);
+        assertArrayEquals(rebuiltMonthly.cleanMs, monthly.cleanMs);
+        assertArrayEquals(rebuiltMonthly.resets, monthly.resets);
+        assertEquals(readResetDays(), resetDays);
+    }
+
+    @Test
+    public void rollupsFollowZoneChange() {
+        TimeZone original = TimeZone.getDefault();
+        // Far enough from any original zone that most streak pieces move to another day
+        TimeZone moved = TimeZone.getTimeZone(
+                original.getRawOffset() >= 0 ? "Pacific/Pago_Pago" : "Pacific/Kiritimati");
+        try {
+            TimeZone.setDefault(moved);
+            // What ACTION_TIMEZONE_CHANGED and the next database open run
+            assertTrue(helper.syncRollupZone());
+            assertFalse(helper.syncRollupZone());
+            assertMatchesExpansion(moved);
+
+            // Writes after the change fold in the new zone too
+            helper.addRelapse(TRACKER, lastEnd, lastEnd + 30 * HOUR_MS, null, null);
+            lastEnd += 30 * HOUR_MS;
+            assertMatchesExpansion(moved);
+        } finally {
+            TimeZone.setDefault(original);
+        }
+        assertTrue(helper.syncRollupZone());
+        assertMatchesExpansion(original);
+    }
+
+    @Test
+    public void yearOfCellsIsOneFastRangeRead() {
+        long lastDay = CalendarDays.epochDay(lastEnd, TimeZone.getDefault());
+        helper.getDailyRollups(TRACKER, lastDay - 364, lastDay); // Warm the page cache
+
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            RollupCells year = helper.getDailyRollups(TRACKER, lastDay - 364, lastDay);
+            times[i] = (System.nanoTime() - start) / 1000;
+            assertEquals(365, year.size());
+        }
+        Arrays.sort(times);
+        long median = times[RUNS / 2];
+        Log.i(TAG, "365 day cells in " + median + "us over " + YEARS + " years of history");
+        assertTrue("Year read took " + median + "us", median <= YEAR_READ_BUDGET_MS * 1000);
+
+        Cursor plan = helper.getReadableDatabase().rawQuery(
+                "EXPLAIN QUERY PLAN SELECT day, clean_ms, resets FROM relapse_daily WHERE tracker_id = 1 AND day BETWEEN 1 AND 2", null);
+        StringBuilder detail = new StringBuilder();
+        while (plan.moveToNext()) {
+            detail.append(plan.getString(plan.getColumnCount() - 1));
+        }
+        plan.close();
+        assertTrue(detail.toString(), detail.toString().contains("PRIMARY KEY"));
+    }
+
+    /**
+     * Every daily cell, every monthly cell and every month's reset_days against a naive
+     * expansion: each streak walked midnight to midnight with java.util.Calendar.
+     */
+    private void assertMatchesExpansion(TimeZone zone) {
+        TreeMap<Long, long[]> days = new TreeMap<>();   // day -> {clean ms, resets}
+        TreeMap<Long, long[]> months = new TreeMap<>(); // month -> {clean ms, resets, reset days}
+        Calendar cal = Calendar.getInstance(zone);
+        Cursor rows = helper.getReadableDatabase().rawQuery(
+                "SELECT streak_start_ts, streak_end_ts FROM relapse_history", null);
+        try {
+            while (rows.moveToNext()) {
+                long cursor = rows.getLong(0);
+                long end = rows.getLong(1);
+                while (true) {
+                    long day = dayKey(cal, cursor);
+                    long month = cal.get(Calendar.YEAR) * 12L + cal.get(Calendar.MONTH);
+                    long nextMidnight = nextMidnight(cal, cursor, day);
+                    long piece = Math.min(end, nextMidnight) - cursor;
+                    days.computeIfAbsent(day, k -> new long[2])[0] += piece;
+                    months.computeIfAbsent(month, k -> new long[3])[0] += piece;
+                    if (end < nextMidnight) {
+                        if (days.get(day)[1]++ == 0) months.get(month)[2]++;
+                        months.get(month)[1]++;
+                        break;
+                    }
+                    cursor = nextMidnight;
+                }
+            }
+        } finally {
+            rows.close();
+        }
+
+        long firstDay = days.firstKey();
+        RollupCells daily = helper.getDailyRollups(TRACKER, firstDay, days.lastKey());
+        for (int i = 0; i < daily.size(); i++) {
+            long[] expected = days.getOrDefault(firstDay + i, new long[2]);
+            assertEquals("clean ms of day " + (firstDay + i), expected[0], daily.cleanMs[i]);
+            assertEquals("resets of day " + (firstDay + i), expected[1], daily.resets[i]);
+        }
+        long firstMonth = months.firstKey();
+        RollupCells monthly = helper.getMonthlyRollups(TRACKER, firstMonth, months.lastKey());
+        Map<Long, Long> resetDays = readResetDays();
+        for (int i = 0; i < monthly.size(); i++) {
+            long[] expected = months.getOrDefault(firstMonth + i, new long[3]);
+            assertEquals("clean ms of month " + (firstMonth + i), expected[0], monthly.cleanMs[i]);
+            assertEquals("resets of month " + (firstMonth + i), expected[1], monthly.resets[i]);
+            assertEquals("reset days of month " + (firstMonth + i), expected[2],
+                    (long) resetDays.getOrDefault(firstMonth + i, 0L));
+        }
+    }
+
+    // First instant after from whose local date is past day. Searched for by that definition
+    // alone, so a midnight skipped or repeated by a DST change needs no special case
+    private static long nextMidnight(Calendar cal, long from, long day) {
+        long lo = from;
+        long hi = from + 2 * CalendarDays.DAY_MS;
+        while (hi - lo > 1) {
+            long mid = (lo + hi) >>> 1;
+            if (dayKey(cal, mid) > day) hi = mid;
+            else lo = mid;
+        }
+        return hi;
+    }
+
+    // Local date at time as days since 1970-01-01, through a UTC calendar rather than offsets.
+    // Leaves cal set to time
+    private static long dayKey(Calendar cal, long time) {
+        cal.setTimeInMillis(time);
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        utc.clear();
+        utc.set(cal.get(Calendar.YEAR), cal.get(Calendar.MONTH), cal.get(Calendar.DAY_OF_MONTH));
+        return Math.floorDiv(utc.getTimeInMillis(), CalendarDays.DAY_MS);
+    }
+
+    private Map<Long, Long> readResetDays() {
+        Map<Long, Long> resetDays = new HashMap<>();
+        Cursor cursor = helper.getReadableDatabase().rawQuery(
+                "SELECT month, reset_days FROM relapse_monthly WHERE reset_days > 0", null);
+        try {
+            while (cursor.moveToNext()) {
+                resetDays.put(cursor.getLong(0), cursor.getLong(1));
+            }
+        } finally {
+            cursor.close();
+        }
+        return resetDays;
+    }
+
+    private long countResetDays() {
+        return DatabaseUtils.longForQuery(helper.getReadableDatabase(),
+                "SELECT COUNT(*) FROM relapse_daily WHERE resets > 0", null);
+    }
+}
@@ -0,0 +1,123 @@
+package com.gratus.retrack;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * FTS search against a LIKE '%term%' scan over 100k generated rows.
+ * Timings are logged under "SearchPerformance" and every query must answer within 50ms.
+ * Ranking only scores a bounded window of the newest matches, so "deadline", which appears
+ * in about 38% of the rows (14 words drawn from 30), costs about what a rare term does.
+ * LIKE with LIMIT stops early on such a common word, so it is logged for reference only.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SearchPerformanceTest {
+
+    private static final String TAG = "SearchPerformance";
+    private static final String DB_NAME = "search_perf_test.db";
+    private static final long TRACKER = RelapseDbHelper.DEFAULT_TRACKER_ID;
+    private static final int ROWS = 100_000;
+    private static final int RUNS = 7;
+    private static final int LIMIT = 100;
+    private static final long BUDGET_MS = 50;
+
+    private static final String[] WORDS = {
+            "tired", "bored", "stress", "work", "late", "night", "alone", "phone", "scrolling", "argument",
+            "walk", "journal", "sleep", "early", "call", "friend", "gym", "water", "breathe", "plan",
+            "weekend", "party", "deadline", "anxious", "lonely", "morning", "habit", "trigger", "craving", "music"
+    };
+
+    private Context context;
+    private RelapseDbHelper helper;
+
+    @Before
+    public void seed() throws Exception {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        helper = new RelapseDbHelper(context, DB_NAME);
+
+        Random random = new Random(42);
+        long[] next = {1_600_000_000_000L};
+        int[] produced = {0};
+        helper.importRelapses(TRACKER, () -> {
+            if (produced[0]++ >= ROWS) return null;
+            long start = next[0];
+            long end = start + 3_600_000L + random.nextInt(1_000_000_000);
+            next[0] = end;
+            return new RelapseLog(start, end, end - start, sentence(random, 8), sentence(random, 6));
+        });
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void ftsWithinBudget() {
+        for (String term : new String[]{"deadline", "crav", "night walk"}) {
+            long fts = medianMs(() -> assertFalse(helper.search(TRACKER, term, LIMIT).isEmpty()));
+            long like = medianMs(() -> likeScan(term.split(" ")[0]));
+            Log.i(TAG, "\"" + term + "\" fts " + fts + "ms, like " + like + "ms (" + ROWS + " rows)");
+            assertTrue("FTS took " + fts + "ms for \"" + term + "\"", fts <= BUDGET_MS);
+        }
+    }
+
+    @Test
+    public void hitsCarryHistoryResetNumbers() {
+        for (RelapseSearchHit hit : helper.search(TRACKER, "deadline", LIMIT)) {
+            assertEquals(helper.countUpTo(TRACKER, hit.log.endTime, hit.log.id), hit.resetNumber);
+        }
+    }
+
+    // What search would cost without the index: every row's text is read and scanned
+    private void likeScan(String term) {
+        String pattern = "%" + term + "%";
+        Cursor cursor = helper.getReadableDatabase().rawQuery(
+                "SELECT id, why_it_happened, next_steps FROM relapse_history " +
+                        "WHERE why_it_happened LIKE ? OR next_steps LIKE ? ORDER BY streak_end_ts DESC LIMIT " + LIMIT,
+                new String[]{pattern, pattern});
+        while (cursor.moveToNext()) {
+            cursor.getString(1);
+        }
+        cursor.close();
+    }
+
+    private static long medianMs(Runnable query) {
+        query.run(); // Warm the page cache and statement cache
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            query.run();
+            times[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+}
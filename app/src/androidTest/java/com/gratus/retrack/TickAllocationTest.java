@@ -0,0 +1,88 @@
+package com.gratus.retrack;
+
+import android.os.Debug;
+import android.util.Log;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.gratus.retrack.helpers.StreakTicker;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Objects allocated on the main thread per one-second tick: StreakTicker against the old
+ * updateTimerDisplay (String.valueOf + String.format + setText on every tick). Both draw into
+ * the same kind of TextViews on a visible MainActivity, so TextView's own cost is in both.
+ * Counts are logged under "TickAllocations".
+ */
+@RunWith(AndroidJUnit4.class)
+public class TickAllocationTest {
+
+    private static final String TAG = "TickAllocations";
+    private static final int TICKS = 3_600; // An hour of seconds
+
+    @Test
+    @SuppressWarnings("deprecation") // Debug alloc counting still works on ART
+    public void tickerAllocatesLessThanStringFormat() {
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            long[] perTick = new long[2];
+            scenario.onActivity(activity -> {
+                LinearLayout column = new LinearLayout(activity);
+                column.setOrientation(LinearLayout.VERTICAL);
+                TextView days = new TextView(activity);
+                TextView clock = new TextView(activity);
+                column.addView(days);
+                column.addView(clock);
+                ((ViewGroup) activity.findViewById(android.R.id.content)).addView(column);
+
+                long start = System.currentTimeMillis() - 3 * TimeUnit.DAYS.toMillis(1);
+                StreakTicker ticker = new StreakTicker(activity, days, clock);
+                ticker.setStartTime(start);
+                ticker.start();
+                ticker.stop(); // Driven by hand below, not by the scheduler
+
+                long now = System.currentTimeMillis();
+                ticker.onTick(now); // Warm up
+                perTick[0] = countPerTick(() -> {
+                    for (int i = 1; i <= TICKS; i++) ticker.onTick(now + i * 1000L);
+                });
+                oldTick(days, clock, start, now);
+                perTick[1] = countPerTick(() -> {
+                    for (int i = 1; i <= TICKS; i++) oldTick(days, clock, start, now + i * 1000L);
+                });
+            });
+            Log.i(TAG, "objects per tick: StreakTicker " + perTick[0] + ", String.format " + perTick[1]);
+            assertTrue("ticker " + perTick[0] + " vs format " + perTick[1], perTick[0] < perTick[1]);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static long countPerTick(Runnable ticks) {
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        ticks.run();
+        Debug.stopAllocCounting();
+        return Debug.getThreadAllocCount() / TICKS;
+    }
+
+    // The pre-StreakTicker tick body, minus the prefs read
+    private static void oldTick(TextView daysView, TextView clockView, long startTime, long now) {
+        long diff = Math.max(0, now - startTime);
+        long days = TimeUnit.MILLISECONDS.toDays(diff);
+        long hours = TimeUnit.MILLISECONDS.toHours(diff) % 24;
+        long minutes = TimeUnit.MILLISECONDS.toMinutes(diff) % 60;
+        long seconds = TimeUnit.MILLISECONDS.toSeconds(diff) % 60;
+        daysView.setText(String.valueOf(days));
+        clockView.setText(String.format(Locale.getDefault(), "%01dh %01dm %01ds", hours, minutes, seconds));
+    }
+}
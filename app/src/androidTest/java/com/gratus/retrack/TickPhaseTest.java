@@ -0,0 +1,60 @@
+package com.gratus.retrack;
+
+import android.app.Instrumentation;
+import android.os.SystemClock;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.gratus.retrack.helpers.TickScheduler;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Two counters half a second out of phase share the TickScheduler. Each must tick on its own
+ * second boundary, a frame or so late at most, not on the other counter's.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TickPhaseTest {
+
+    private static final long RUN_MS = 3_500;
+    private static final long LATE_MS = 50; // The 16 ms coalescing window plus Looper slack
+
+    @Test
+    public void eachCounterTicksOnItsOwnSecond() {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        TickScheduler scheduler = TickScheduler.getInstance();
+        long anchor = System.currentTimeMillis();
+        List<Long> onPhase = new ArrayList<>();
+        List<Long> offPhase = new ArrayList<>();
+        TickScheduler.Tickable first = onPhase::add;
+        TickScheduler.Tickable second = offPhase::add;
+
+        instrumentation.runOnMainSync(() -> {
+            scheduler.add(first, anchor);
+            scheduler.add(second, anchor + 500);
+        });
+        SystemClock.sleep(RUN_MS);
+        instrumentation.runOnMainSync(() -> {
+            scheduler.remove(first);
+            scheduler.remove(second);
+        });
+
+        assertOnPhase(onPhase, anchor);
+        assertOnPhase(offPhase, anchor + 500);
+    }
+
+    private static void assertOnPhase(List<Long> ticks, long anchor) {
+        assertTrue("Ticks: " + ticks, ticks.size() >= 3);
+        for (long now : ticks) {
+            long late = Math.floorMod(now - anchor, 1000L);
+            assertTrue(late + "ms after its boundary", late <= LATE_MS);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.gratus.retrack;
+
+import android.util.Log;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+import android.widget.ScrollView;
+import android.widget.TextView;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.gratus.retrack.helpers.StreakTicker;
+import com.gratus.retrack.helpers.TickScheduler;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 50 visible streak counters on top of MainActivity, all driven by the shared TickScheduler.
+ * Each pass re-renders every counter (every start time is a second apart, so every seconds
+ * digit changes). Timings are logged under "TickPerformance"; the median pass must fit well
+ * inside a 60 Hz frame so the tick never costs a dropped frame.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TickSchedulerPerformanceTest {
+
+    private static final String TAG = "TickPerformance";
+    private static final int COUNTERS = 50;
+    private static final int RUNS = 31;
+    private static final long BUDGET_NS = 4_000_000; // A quarter of a 16.6 ms frame
+
+    @Test
+    public void fiftyCountersTickInOnePass() {
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            TickScheduler scheduler = TickScheduler.getInstance();
+            StreakTicker[] tickers = new StreakTicker[COUNTERS];
+            int[] before = new int[1];
+
+            scenario.onActivity(activity -> {
+                before[0] = scheduler.size();
+                LinearLayout column = new LinearLayout(activity);
+                column.setOrientation(LinearLayout.VERTICAL);
+                long now = System.currentTimeMillis();
+                for (int i = 0; i < COUNTERS; i++) {
+                    TextView days = new TextView(activity);
+                    TextView clock = new TextView(activity);
+                    column.addView(days);
+                    column.addView(clock);
+                    tickers[i] = new StreakTicker(activity, days, clock);
+                    tickers[i].setStartTime(now - (i + 1) * 86_400_000L - i * 1000L);
+                    tickers[i].start();
+                }
+                ScrollView scroll = new ScrollView(activity);
+                scroll.addView(column);
+                ((ViewGroup) activity.findViewById(android.R.id.content)).addView(scroll);
+            });
+
+            long[] times = new long[RUNS];
+            for (int run = 0; run < RUNS; run++) {
+                int r = run;
+                scenario.onActivity(activity -> {
+                    // One simulated second later each time, so every counter has a new text
+                    long now = System.currentTimeMillis() + (r + 1) * 1000L;
+                    long start = System.nanoTime();
+                    scheduler.dispatch(now);
+                    times[r] = System.nanoTime() - start;
+                });
+            }
+
+            scenario.onActivity(activity -> {
+                assertEquals(before[0] + COUNTERS, scheduler.size());
+                for (StreakTicker ticker : tickers) {
+                    ticker.stop();
+                }
+            });
+
+            Arrays.sort(times);
+            long median = times[RUNS / 2];
+            Log.i(TAG, COUNTERS + " counters: median pass " + median / 1000 + "us, max "
+                    + times[RUNS - 1] / 1000 + "us");
+            assertTrue("Median tick pass took " + median / 1000 + "us", median <= BUDGET_NS);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.gratus.retrack;
+
+import android.os.SystemClock;
+import android.widget.TextView;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.gratus.retrack.helpers.StreakTicker;
+import com.gratus.retrack.helpers.TickScheduler;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * A counter on a stopped activity must not receive ticks. Since ticking goes through the
+ * shared TickScheduler, a stopped counter is unregistered outright, so the debug counter of
+ * ticks delivered while invisible has to stay at 0, and coming back catches up in one render.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TickerVisibilityTest {
+
+    private static final long INVISIBLE_MS = 3_500;
+
+    @Test
+    public void noTicksWhileStopped() {
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            StreakTicker[] ticker = new StreakTicker[1];
+            TextView[] clock = new TextView[1];
+            scenario.onActivity(activity -> {
+                clock[0] = new TextView(activity);
+                ticker[0] = new StreakTicker(activity, new TextView(activity), clock[0]);
+                ticker[0].setStartTime(System.currentTimeMillis() - 90_000);
+                ticker[0].start();
+            });
+
+            scenario.moveToState(Lifecycle.State.CREATED);
+            CharSequence[] before = new CharSequence[1];
+            scenario.onActivity(activity -> {
+                // Every counter here belongs to the stopped activity, so nothing is left to tick
+                assertEquals(0, TickScheduler.getInstance().size());
+                before[0] = clock[0].getText().toString();
+            });
+            SystemClock.sleep(INVISIBLE_MS);
+
+            scenario.onActivity(activity -> {
+                assertEquals(0, ticker[0].getTicksWhileInvisible());
+                assertEquals(before[0], clock[0].getText().toString());
+            });
+
+            scenario.moveToState(Lifecycle.State.RESUMED);
+            scenario.onActivity(activity -> {
+                // Caught up straight from the start time, no ticks were needed
+                assertNotEquals(before[0], clock[0].getText().toString());
+                assertEquals(0, ticker[0].getTicksWhileInvisible());
+            });
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.gratus.retrack;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.gratus.retrack.helpers.CalendarDays;
+
+/**
+ * Calendar heatmap: one column per week, one row per day of week (Sunday on top).
+ * Reset days are drawn in the relapse colour, clean days in the text colour with an
+ * opacity that follows how much of the day was clean, days with no data faintly.
+ * Cells come from relapse_daily as they are, nothing is computed per streak here.
+ */
+public class HeatmapView extends View {
+
+    private static final int ROWS = 7;
+    private static final float GAP_FRACTION = 0.18f; // Of a cell
+    private static final float CORNER_FRACTION = 0.25f;
+
+    private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF cell = new RectF();
+    private final int resetColor;
+    private final int cleanColor;
+    private final int emptyColor;
+
+    private long[] cleanMs = new long[0];
+    private int[] resets = new int[0];
+
+    public HeatmapView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        resetColor = ContextCompat.getColor(context, R.color.relapse_text);
+        cleanColor = ContextCompat.getColor(context, R.color.black_white);
+        emptyColor = ContextCompat.getColor(context, R.color.boxstroke_color);
+    }
+
+    /**
+     * @param cells consecutive days, the first of which is drawn in the top-left (Sunday) slot
+     */
+    public void setCells(RollupCells cells) {
+        cleanMs = cells.cleanMs;
+        resets = cells.resets;
+        requestLayout();
+        invalidate();
+    }
+
+    private int columns() {
+        return Math.max(1, (resets.length + ROWS - 1) / ROWS);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        float size = (float) (width - getPaddingLeft() - getPaddingRight()) / columns();
+        int height = Math.round(size * ROWS) + getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(width, resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        float size = (float) (getWidth() - getPaddingLeft() - getPaddingRight()) / columns();
+        float gap = size * GAP_FRACTION;
+        float corner = size * CORNER_FRACTION;
+        for (int i = 0; i < resets.length; i++) {
+            float left = getPaddingLeft() + (i / ROWS) * size;
+            float top = getPaddingTop() + (i % ROWS) * size;
+            cell.set(left, top, left + size - gap, top + size - gap);
+            paint.setColor(colorOf(i));
+            canvas.drawRoundRect(cell, corner, corner, paint);
+        }
+    }
+
+    private int colorOf(int i) {
+        if (resets[i] > 0) return resetColor;
+        if (cleanMs[i] <= 0) return emptyColor;
+        // A partly clean day (the streak began that day) is lighter than a whole one
+        float fraction = Math.min(1f, (float) cleanMs[i] / CalendarDays.DAY_MS);
+        int alpha = Math.round(Color.alpha(cleanColor) * (0.35f + 0.65f * fraction));
+        return (cleanColor & 0x00FFFFFF) | (alpha << 24);
+    }
+}
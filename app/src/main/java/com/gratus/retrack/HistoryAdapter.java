@@ -1,26 +1,41 @@
 package com.gratus.retrack;
 
-import android.text.format.DateFormat;
+import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.gratus.retrack.utils.TextFormatUtils;
-
-import java.util.Calendar;
 import java.util.List;
-import java.util.Locale;
-import java.util.concurrent.TimeUnit;
 
-public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.ViewHolder> {
+public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.ViewHolder> implements HistoryPager.Listener {
+
+    // Rows are immutable per (id, reset number), the number only moves if older records are imported.
+    // Search results share ids with history rows but carry snippets, so the text is compared
+    // too. Rendered text usually comes from TextFormatUtils' cache, which makes equals() cheap.
+    private static final DiffUtil.ItemCallback<HistoryRow> DIFF_CALLBACK = new DiffUtil.ItemCallback<HistoryRow>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull HistoryRow oldItem, @NonNull HistoryRow newItem) {
+            return oldItem.id == newItem.id;
+        }
 
-    private List<RelapseLog> historyList;
+        @Override
+        public boolean areContentsTheSame(@NonNull HistoryRow oldItem, @NonNull HistoryRow newItem) {
+            return oldItem.resetNumber == newItem.resetNumber
+                    && TextUtils.equals(oldItem.reason, newItem.reason)
+                    && TextUtils.equals(oldItem.nextSteps, newItem.nextSteps);
+        }
+    };
 
-    public HistoryAdapter(List<RelapseLog> historyList) {
-        this.historyList = historyList;
+    // Diffs on a background thread and dispatches only the changed ranges
+    private final AsyncListDiffer<HistoryRow> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+
+    public HistoryAdapter() {
+        setHasStableIds(true);
     }
 
     @NonNull
@@ -33,35 +48,28 @@ public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.ViewHold
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        RelapseLog item = historyList.get(position);
-
-        // 1. Relapse Number (Count backwards so newest is the highest number)
-        int relapseNumber = historyList.size() - position;
-        holder.tvTitle.setText("Reset #" + relapseNumber);
-
-        // 2. Date Formatting (e.g., 12/12/2025 • 1700hrs)
-        Calendar cal = Calendar.getInstance(Locale.getDefault());
-        cal.setTimeInMillis(item.endTime);
-        String datePart = DateFormat.format("dd/MM/yyyy", cal).toString();
-        String timePart = DateFormat.format("HH:mm", cal).toString();
-        holder.tvTimestamp.setText(datePart + " • " + timePart + "hrs");
-
-        // 3. Texts
-        holder.tvReason.setText(item.reason.isEmpty() ? "No reason recorded" : (TextFormatUtils.formatNotesForDisplay(item.reason)));
-        holder.tvNextStepsDesc.setText(item.nextSteps.isEmpty() ? "No steps recorded" : (TextFormatUtils.formatNotesForDisplay(item.nextSteps)));
-
-        // 4. Duration Formatting
-        long days = TimeUnit.MILLISECONDS.toDays(item.duration);
-        long hours = TimeUnit.MILLISECONDS.toHours(item.duration) % 24;
-        long minutes = TimeUnit.MILLISECONDS.toMinutes(item.duration) % 60;
+        // Everything is pre-formatted off the main thread, bind only assigns
+        HistoryRow row = differ.getCurrentList().get(position);
+        holder.tvTitle.setText(row.title);
+        holder.tvTimestamp.setText(row.timestamp);
+        holder.tvReason.setText(row.reason);
+        holder.tvNextStepsDesc.setText(row.nextSteps);
+        holder.tvDuration.setText(row.duration);
+    }
 
-        holder.tvDuration.setText(String.format(Locale.getDefault(),
-                "Streak lasted: %dd %dh %dm", days, hours, minutes));
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).id;
     }
 
     @Override
     public int getItemCount() {
-        return historyList.size();
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public void onWindowChanged(List<HistoryRow> rows) {
+        differ.submitList(rows);
     }
 
     public static class ViewHolder extends RecyclerView.ViewHolder {
@@ -77,4 +85,4 @@ public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.ViewHold
         }
     }
 
-}
\ No newline at end of file
+}
@@ -2,8 +2,6 @@ package com.gratus.retrack;
 
 import android.app.Activity;
 import android.app.Dialog;
-import android.content.ContentResolver;
-import android.content.ContentValues;
 import android.content.DialogInterface;
 import android.content.Context;
 import android.content.res.Configuration;
@@ -11,20 +9,26 @@ import android.graphics.Color;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
 import android.net.Uri;
-import android.os.Build;
 import android.os.Bundle;
-import android.os.Environment;
-import android.provider.MediaStore;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.Window;
 import android.view.WindowManager;
+import android.widget.EditText;
 import android.widget.ImageButton;
+import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
 import androidx.core.content.ContextCompat;
 import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
@@ -35,25 +39,46 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.bottomsheet.BottomSheetBehavior;
 import com.google.android.material.bottomsheet.BottomSheetDialogFragment;
+import com.gratus.retrack.helpers.CalendarDays;
+import com.gratus.retrack.helpers.DatabaseExporter;
 import com.gratus.retrack.helpers.DialogBlurHelper;
+import com.gratus.retrack.helpers.HistoryImporter;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.TimeZone;
 
 public class HistoryBottomSheet extends BottomSheetDialogFragment {
 
     private BottomSheetBehavior<View> behavior;
+    private HistoryPager pager;
+    private HistoryAdapter adapter;
+    private TextView titleView;
+    private boolean exporting = false;
     private DialogBlurHelper blurHelper;
     private static final float BLUR_INTENSITY = 8f; // Adjust intensity here
 
+    // Search replaces the paged list while the query is non-empty
+    private static final long SEARCH_DEBOUNCE_MS = 150;
+    private static final int SEARCH_LIMIT = 100;
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private final Runnable runSearch = this::runSearch;
+    private String searchQuery = "";
+    private int searchGeneration = 0; // Bumped per query, late results from older ones are dropped
+    private List<HistoryRow> pagedRows = Collections.emptyList();
+
+    // Heatmap: 52 full weeks back from the week holding today
+    private static final int HEATMAP_WEEKS = 53;
+    private HeatmapView heatmapView;
+    private boolean heatmapLoaded = false;
+
+    // Exports may be .db, .csv, .jsonl or gzipped, the importer sniffs the content itself
+    private final ActivityResultLauncher<String[]> importPicker =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(), this::importFrom);
+
     @Override
     public void onAttach(@NonNull Context context) {
         super.onAttach(context);
@@ -74,23 +99,57 @@ public class HistoryBottomSheet extends BottomSheetDialogFragment {
         super.onViewCreated(view, savedInstanceState);
         // Close button logic
         view.findViewById(R.id.close_history).setOnClickListener(v -> dismiss());
+        titleView = view.findViewById(R.id.history_title);
         // Export button set up here
         ImageButton exportButton = view.findViewById(R.id.saveDB_btn);
         exportButton.setOnClickListener(v -> exportData());
+        view.findViewById(R.id.importDB_btn).setOnClickListener(v -> importPicker.launch(new String[]{"*/*"}));
 
         // --- NEW CODE START ---
         RecyclerView recyclerView = view.findViewById(R.id.recycler_history);
-        recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        recyclerView.setLayoutManager(layoutManager);
 
-        // Load Data
-        RelapseDbHelper dbHelper = new RelapseDbHelper(getContext());
-        List<RelapseLog> logs = dbHelper.getAllRelapses();
-
-        // Set Adapter
-        HistoryAdapter adapter = new HistoryAdapter(logs);
+        // Load Data page by page (keyset on streak_end_ts), the adapter fills in as pages arrive
+        pager = new HistoryPager(RelapseRepository.getInstance(requireContext()));
+        adapter = new HistoryAdapter();
+        pager.setListener(rows -> {
+            pagedRows = rows;
+            if (searchQuery.isEmpty()) adapter.onWindowChanged(rows);
+        });
         recyclerView.setAdapter(adapter);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                // Positions refer to search results while searching, not to the pager's window
+                if (!searchQuery.isEmpty()) return;
+                pager.onVisibleRangeChanged(
+                        layoutManager.findFirstVisibleItemPosition(),
+                        layoutManager.findLastVisibleItemPosition());
+            }
+        });
+        pager.loadInitial();
         // --- NEW CODE END ---
 
+        heatmapView = view.findViewById(R.id.history_heatmap);
+        loadHeatmap();
+
+        EditText searchField = view.findViewById(R.id.history_search);
+        searchField.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                onSearchChanged(s.toString().trim());
+            }
+        });
+
         ///*
         ViewCompat.setOnApplyWindowInsetsListener(view.findViewById(R.id.bottom_sheet_root), (v, insets) -> {
             Insets systemBars = insets.getInsets(WindowInsetsCompat.Type.systemBars());
@@ -104,74 +163,157 @@ public class HistoryBottomSheet extends BottomSheetDialogFragment {
         //*/
     }
 
+    @Override
+    public void onDestroyView() {
+        // Late pages must not touch a detached RecyclerView
+        if (pager != null) {
+            pager.release();
+        }
+        searchHandler.removeCallbacks(runSearch);
+        searchGeneration++;
+        adapter = null;
+        titleView = null;
+        heatmapView = null;
+        super.onDestroyView();
+    }
+
+    private void onSearchChanged(String query) {
+        if (query.equals(searchQuery)) return;
+        searchQuery = query;
+        searchHandler.removeCallbacks(runSearch);
+        // Results are not tied to dates, the heatmap only goes with the full history
+        heatmapView.setVisibility(query.isEmpty() && heatmapLoaded ? View.VISIBLE : View.GONE);
+        if (query.isEmpty()) {
+            // Back to the paged history, exactly as it was left
+            searchGeneration++;
+            adapter.onWindowChanged(pagedRows);
+        } else {
+            // Wait for a pause in typing instead of querying every keystroke
+            searchHandler.postDelayed(runSearch, SEARCH_DEBOUNCE_MS);
+        }
+    }
+
+    // One range read of precomputed day cells; only the running streak is laid on top here
+    private void loadHeatmap() {
+        TimeZone zone = TimeZone.getDefault();
+        long now = System.currentTimeMillis();
+        long today = CalendarDays.epochDay(now, zone);
+        // Start on a Sunday so every column is a whole week (1970-01-01 was a Thursday)
+        long firstDay = today - Math.floorMod(today + 4, 7) - (HEATMAP_WEEKS - 1) * 7L;
+        Context context = requireContext();
+        JourneyStore store = JourneyStore.getInstance(context);
+        // The running streak is laid on top, so the read waits for the tracker row too
+        store.whenJourneyLoaded(() -> RelapseRepository.getInstance(context).getDailyRollups(firstDay, today, cells -> {
+            if (heatmapView == null) return;
+            boolean running = store.isRunning();
+            long startTime = store.getStartTime();
+            if (running && startTime < now) {
+                long startDay = Math.max(firstDay, CalendarDays.epochDay(startTime, zone));
+                for (long day = startDay; day <= today; day++) {
+                    int i = (int) (day - firstDay);
+                    long dayStart = Math.max(startTime, CalendarDays.startOfDay(day, zone));
+                    long dayEnd = Math.min(now, CalendarDays.startOfDay(day + 1, zone));
+                    cells.cleanMs[i] += Math.max(0, dayEnd - dayStart);
+                }
+            }
+            heatmapView.setCells(cells);
+            heatmapLoaded = true;
+            if (searchQuery.isEmpty()) heatmapView.setVisibility(View.VISIBLE);
+        }));
+    }
+
+    private void runSearch() {
+        int generation = ++searchGeneration;
+        RelapseRepository.getInstance(requireContext()).search(searchQuery, SEARCH_LIMIT,
+                HistoryRow::buildSearchResults,
+                rows -> {
+                    if (generation != searchGeneration || adapter == null) return;
+                    adapter.onWindowChanged(rows);
+                });
+    }
+
     // 01/02/2026 - Functionality to export the database - Starts here
     private void exportData() {
-        try {
-            String timestamp = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss", Locale.getDefault()).format(new Date());
+        if (exporting) return;
+        new AlertDialog.Builder(requireContext())
+                .setTitle(R.string.export_dialog_title)
+                .setItems(R.array.export_options, (dialog, which) -> {
+                    switch (which) {
+                        case 0: startExport(null, false); break;
+                        case 1: startExport(DatabaseExporter.TextFormat.CSV, false); break;
+                        case 2: startExport(DatabaseExporter.TextFormat.CSV, true); break;
+                        case 3: startExport(DatabaseExporter.TextFormat.JSON_LINES, false); break;
+                        case 4: startExport(DatabaseExporter.TextFormat.JSON_LINES, true); break;
+                    }
+                })
+                .show();
+    }
 
-            // Export .db files
-            exportFile("retrack_data" + timestamp + ".db", "application/octet-stream");
+    // Runs in the background, progress is shown in the sheet title.
+    // format == null exports a consistent snapshot of the raw .db file.
+    private void startExport(@Nullable DatabaseExporter.TextFormat format, boolean gzip) {
+        exporting = true;
+        String timestamp = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss", Locale.getDefault()).format(new Date());
+        Context appContext = requireContext().getApplicationContext();
 
-            Toast.makeText(requireContext(), "Exported successfully!", Toast.LENGTH_SHORT).show();
-        } catch (Exception e) {
-            e.printStackTrace();
-            Toast.makeText(requireContext(), "Export encountered an error.", Toast.LENGTH_SHORT).show();
-        }
-    }
+        DatabaseExporter.Listener listener = new DatabaseExporter.Listener() {
+            @Override
+            public void onProgress(long written, long total) {
+                if (titleView == null || total <= 0) return;
+                titleView.setText(getString(R.string.history_sheet_title_text) + " \u2022 " + (written * 100 / total) + "%");
+            }
 
-    private void exportFile(String fileName, String mimeType) throws Exception {
-        OutputStream outputStream;
-        Context context = requireContext(); // or getContext()
-        ContentResolver resolver = context.getContentResolver();
-
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-            // Use MediaStore for Android 10+
-            ContentValues values = new ContentValues();
-            values.put(MediaStore.MediaColumns.DISPLAY_NAME, fileName);
-            values.put(MediaStore.MediaColumns.MIME_TYPE, mimeType);
-            values.put(MediaStore.MediaColumns.RELATIVE_PATH, Environment.DIRECTORY_DOCUMENTS + "/ReTrackExports");
-
-            Uri fileUri = resolver.insert(MediaStore.Files.getContentUri("external"), values);
-            if (fileUri == null) {
-                throw new FileNotFoundException("Failed to create file in Documents directory");
+            @Override
+            public void onComplete() {
+                exporting = false;
+                resetTitle();
+                Toast.makeText(appContext, "Exported successfully!", Toast.LENGTH_SHORT).show();
             }
-            outputStream = resolver.openOutputStream(fileUri);
-        } else {
-            // Use legacy storage for Android 9 and below
-            File exportDir = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOCUMENTS);
-            File meditationDir = new File(exportDir, "ReTrackExports");
-            if (!meditationDir.exists() && !meditationDir.mkdirs()) {
-                throw new Exception("Failed to create ReTrackExports directory.");
+
+            @Override
+            public void onError(Exception e) {
+                exporting = false;
+                e.printStackTrace();
+                resetTitle();
+                Toast.makeText(appContext, "Export encountered an error.", Toast.LENGTH_SHORT).show();
             }
-            File exportFile = new File(meditationDir, fileName);
-            outputStream = new FileOutputStream(exportFile);
-        }
+        };
 
-        // Export database file
-        String dbName;
-        if (fileName.contains("retrack_data")) {
-            dbName = "retrack_data.db";
+        DatabaseExporter exporter = new DatabaseExporter(appContext);
+        if (format == null) {
+            exporter.exportDatabase("retrack_data" + timestamp + ".db", listener);
         } else {
-            // Handle the case where none of the conditions are met (optional but good practice)
-            dbName = "default.db"; // Or throw an exception, or assign null
+            exporter.exportHistory("retrack_history" + timestamp, format, gzip, listener);
         }
-        exportDatabase(dbName, outputStream);
-
-        outputStream.close();
     }
 
-    private void exportDatabase(String dbName, OutputStream outputStream) throws Exception {
-        String databasePath = requireContext().getDatabasePath(dbName).getAbsolutePath();
-        try (InputStream inputStream = new FileInputStream(databasePath)) {
-            byte[] buffer = new byte[1024];
-            int length;
-            while ((length = inputStream.read(buffer)) > 0) {
-                outputStream.write(buffer, 0, length);
-            }
+    private void resetTitle() {
+        if (titleView != null) {
+            titleView.setText(R.string.history_sheet_title_text);
         }
     }
     // 01/02/2026 - Functionality to export the database - Ends here
 
+    private void importFrom(@Nullable Uri uri) {
+        if (uri == null) return; // Picker cancelled
+        Context appContext = requireContext().getApplicationContext();
+        new HistoryImporter(appContext).importFrom(uri, new HistoryImporter.Listener() {
+            @Override
+            public void onComplete(int imported, int skipped) {
+                Toast.makeText(appContext, "Imported " + imported + " records"
+                        + (skipped > 0 ? " (" + skipped + " duplicates skipped)" : ""), Toast.LENGTH_SHORT).show();
+                // The import folded its rows into the rollups
+                if (imported > 0 && heatmapView != null) loadHeatmap();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                e.printStackTrace();
+                Toast.makeText(appContext, "Import encountered an error.", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
     @Override
     public void onStart() {
         super.onStart();
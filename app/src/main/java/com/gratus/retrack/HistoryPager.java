@@ -0,0 +1,171 @@
+package com.gratus.retrack;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keyset-paged window over relapse_history (newest first).
+ * Pages are fetched as the list scrolls near either edge of the window, and the
+ * window is trimmed from the far side so at most MAX_PAGES pages are held in memory.
+ * Rows arrive already formatted (see {@link HistoryRow}). Every change is published
+ * as a fresh snapshot, the adapter diffs it against what is on screen.
+ * A write that is not a plain append at the head (an import of older records) shifts
+ * reset numbers under the window, so the window is then rebuilt from the row on screen.
+ */
+public class HistoryPager {
+
+    public interface Listener {
+        void onWindowChanged(List<HistoryRow> rows);
+    }
+
+    public static final int PAGE_SIZE = 40;
+    private static final int MAX_PAGES = 4;
+    private static final int PREFETCH_DISTANCE = 10; // Rows from the edge that trigger the next page
+
+    private final RelapseRepository repository;
+    private final Runnable onDataChanged = this::onDataChanged;
+    private Listener listener;
+
+    private final List<HistoryRow> window = new ArrayList<>();
+    private boolean loading = false;
+    private boolean refreshPending = false; // A write landed while a page was loading
+    private boolean reachedTop = true;  // window.get(0) is the newest record
+    private boolean reachedEnd = false; // window's last row is the oldest record
+    private boolean released = false;
+    private int firstVisible = 0; // Adapter position of the top row on screen, the reload anchor
+
+    public HistoryPager(RelapseRepository repository) {
+        this.repository = repository;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public int size() {
+        return window.size();
+    }
+
+    public void loadInitial() {
+        repository.addChangeListener(onDataChanged);
+        loadOlder(); // From an empty window this fetches the newest page
+    }
+
+    /**
+     * Called by the host on every scroll with the visible adapter positions.
+     */
+    public void onVisibleRangeChanged(int firstVisible, int lastVisible) {
+        this.firstVisible = firstVisible;
+        if (lastVisible >= window.size() - PREFETCH_DISTANCE) {
+            loadOlder();
+        } else if (firstVisible <= PREFETCH_DISTANCE && !reachedTop) {
+            loadNewer();
+        }
+    }
+
+    public void release() {
+        released = true;
+        repository.removeChangeListener(onDataChanged);
+    }
+
+    private void onDataChanged() {
+        if (released) return;
+        if (loading) {
+            refreshPending = true;
+        } else if (window.isEmpty()) {
+            reachedEnd = false;
+            loadOlder();
+        } else if (reachedTop) {
+            // Most writes are a new head row: pull just those, loadNewer checks the numbering
+            loadNewer();
+        } else {
+            // Scrolled away from the head, nothing cheap tells an append from an import
+            reload();
+        }
+    }
+
+    /**
+     * Rebuilds the window from the top row on screen with fresh reset numbers. Rows
+     * that sort between the anchor and its old neighbours are picked up as well.
+     */
+    private void reload() {
+        if (loading) return;
+        loading = true;
+        HistoryRow anchor = window.get(Math.max(0, Math.min(firstVisible, window.size() - 1)));
+        int limit = 2 * PAGE_SIZE;
+        repository.getRelapsesFrom(anchor.endTime, anchor.id, limit,
+                HistoryRow::buildPage,
+                rows -> {
+                    if (released) return;
+                    window.clear();
+                    window.addAll(rows);
+                    reachedEnd = rows.size() < limit;
+                    reachedTop = false; // Rows above the anchor come back through loadNewer
+                    firstVisible = 0;
+                    finishLoad();
+                    if (!loading) loadNewer();
+                });
+    }
+
+    private void loadOlder() {
+        if (loading || reachedEnd) return;
+        loading = true;
+        HistoryRow last = window.isEmpty() ? null : window.get(window.size() - 1);
+        long endTs = last == null ? Long.MAX_VALUE : last.endTime;
+        long id = last == null ? Long.MAX_VALUE : last.id;
+        repository.getRelapsesOlderThan(endTs, id, PAGE_SIZE,
+                (page, totalCount) -> HistoryRow.buildPage(page, last == null ? totalCount : last.resetNumber - 1),
+                rows -> {
+                    if (released) return;
+                    reachedEnd = rows.size() < PAGE_SIZE;
+                    window.addAll(rows);
+
+                    // Drop the oldest-loaded page at the top once the window is full
+                    if (window.size() > MAX_PAGES * PAGE_SIZE) {
+                        window.subList(0, PAGE_SIZE).clear();
+                        reachedTop = false;
+                    }
+                    finishLoad();
+                });
+    }
+
+    private void loadNewer() {
+        if (loading || window.isEmpty()) return;
+        loading = true;
+        HistoryRow first = window.get(0);
+        int[] total = new int[1]; // Written by the mapper on the worker, read after the hand-off
+        repository.getRelapsesNewerThan(first.endTime, first.id, PAGE_SIZE,
+                (page, totalCount) -> {
+                    total[0] = totalCount;
+                    return HistoryRow.buildPage(page, first.resetNumber + page.size());
+                },
+                rows -> {
+                    if (released) return;
+                    // A short page means we are back at the newest record
+                    reachedTop = rows.size() < PAGE_SIZE;
+                    if (reachedTop && first.resetNumber + rows.size() != total[0]) {
+                        // Rows landed below the head too, every number in the window is stale
+                        loading = false;
+                        reload();
+                        return;
+                    }
+                    window.addAll(0, rows);
+
+                    // Mirror of loadOlder: drop the bottom page, it can be fetched again by key
+                    if (window.size() > MAX_PAGES * PAGE_SIZE) {
+                        window.subList(window.size() - PAGE_SIZE, window.size()).clear();
+                        reachedEnd = false;
+                    }
+                    finishLoad();
+                });
+    }
+
+    private void finishLoad() {
+        loading = false;
+        listener.onWindowChanged(new ArrayList<>(window));
+        if (refreshPending) {
+            refreshPending = false;
+            onDataChanged();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.gratus.retrack;
+
+import android.text.format.DateFormat;
+
+import com.gratus.retrack.utils.TextFormatUtils;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Display-ready history row. Built on the DB worker when a page loads, so
+ * HistoryAdapter only has to assign text at bind time.
+ */
+public final class HistoryRow {
+
+    // Keyset for paging
+    public final long id;
+    public final long endTime;
+
+    public final int resetNumber;
+    public final CharSequence title;
+    public final CharSequence timestamp;
+    public final CharSequence reason;
+    public final CharSequence nextSteps;
+    public final CharSequence duration;
+
+    private HistoryRow(RelapseLog log, int resetNumber, CharSequence title,
+                       String reasonText, String stepsText, Calendar cal) {
+        this.id = log.id;
+        this.endTime = log.endTime;
+        this.resetNumber = resetNumber;
+
+        // 1. Relapse Number (newest is the highest number)
+        this.title = title;
+
+        // 2. Date Formatting (e.g., 12/12/2025 • 1700hrs)
+        cal.setTimeInMillis(log.endTime);
+        String datePart = DateFormat.format("dd/MM/yyyy", cal).toString();
+        String timePart = DateFormat.format("HH:mm", cal).toString();
+        this.timestamp = datePart + " • " + timePart + "hrs";
+
+        // 3. Texts
+        this.reason = isBlank(reasonText) ? "No reason recorded" : TextFormatUtils.formatNotesForDisplay(reasonText);
+        this.nextSteps = isBlank(stepsText) ? "No steps recorded" : TextFormatUtils.formatNotesForDisplay(stepsText);
+
+        // 4. Duration Formatting
+        long days = TimeUnit.MILLISECONDS.toDays(log.duration);
+        long hours = TimeUnit.MILLISECONDS.toHours(log.duration) % 24;
+        long minutes = TimeUnit.MILLISECONDS.toMinutes(log.duration) % 60;
+        this.duration = String.format(Locale.getDefault(),
+                "Streak lasted: %dd %dh %dm", days, hours, minutes);
+    }
+
+    /**
+     * Builds rows for a newest-first page. {@code firstResetNumber} belongs to page.get(0),
+     * every following (older) row is one lower.
+     */
+    public static List<HistoryRow> buildPage(List<RelapseLog> page, int firstResetNumber) {
+        List<HistoryRow> rows = new ArrayList<>(page.size());
+        Calendar cal = Calendar.getInstance(Locale.getDefault());
+        for (int i = 0; i < page.size(); i++) {
+            RelapseLog log = page.get(i);
+            int resetNumber = firstResetNumber - i;
+            rows.add(new HistoryRow(log, resetNumber, "Reset #" + resetNumber, log.reason, log.nextSteps, cal));
+        }
+        return rows;
+    }
+
+    /**
+     * Builds rows for search results. Matched terms in the snippets come out bold.
+     * Reset numbers come with the hits, counted by {@link RelapseDbHelper#search}.
+     */
+    public static List<HistoryRow> buildSearchResults(List<RelapseSearchHit> hits) {
+        List<HistoryRow> rows = new ArrayList<>(hits.size());
+        Calendar cal = Calendar.getInstance(Locale.getDefault());
+        for (RelapseSearchHit hit : hits) {
+            rows.add(new HistoryRow(hit.log, hit.resetNumber, "Reset #" + hit.resetNumber,
+                    hit.reasonSnippet, hit.stepsSnippet, cal));
+        }
+        return rows;
+    }
+
+    private static boolean isBlank(String text) {
+        return text == null || text.isEmpty();
+    }
+}
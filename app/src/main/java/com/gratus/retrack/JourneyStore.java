@@ -0,0 +1,354 @@
+package com.gratus.retrack;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Typed in-memory copy of the journey state (selected tracker with its start time and running
+ * flag, theme, custom texts, streak notification toggle).
+ * Loaded once off the main thread at startup, then every read is a plain field read, so the
+ * timer path never touches the SharedPreferences map or its lock. Mutate and observe on the
+ * main thread only.
+ * <p>
+ * The load is two steps with a latch each. Preferences (theme, texts, notification toggle)
+ * come first: the theme is applied before the first frame, so onCreate does wait for them,
+ * but only for the prefs file read it would otherwise do itself, never for the database.
+ * The selected tracker's id is a preference too, handed to {@link RelapseRepository} before the
+ * prefs latch opens, so no history read ever goes to the wrong tracker.
+ * Start time and running flag live in the tracker's row, so a reset commits them in
+ * the same transaction as its history row (see {@link RelapseRepository#addRelapse}); they are
+ * read second, after opening the database, which may have migrations to run. The main thread
+ * never waits for that: it defers the timer and button through {@link #whenJourneyLoaded}.
+ * Preferences are written back in one coalesced apply().
+ */
+public class JourneyStore {
+
+    public interface Observer {
+        void onJourneyStateChanged(JourneyStore store);
+    }
+
+    public static final String THEME_LIGHT = "light";
+    public static final String THEME_DARK = "dark";
+    public static final String THEME_AUTO = "auto";
+
+    // Editor keys handed to UnifiedDialogFragment, also the prefs keys
+    public static final String KEY_TEXT_MOTIVATION = "textMotivation";
+    public static final String KEY_TEXT_LABEL = "textLabel";
+
+    private static final String PREFS_NAME = "ReTrack_config_Prefs";
+    // Journey state before schema v9, moved into the trackers table on first load
+    private static final String KEY_START_TIME = "startTime";
+    private static final String KEY_IS_RUNNING = "isRunning";
+    private static final String KEY_THEME_MODE = "theme_mode";
+    private static final String KEY_NOTIFICATION = "streakNotification";
+    private static final String KEY_TRACKER_ID = "trackerId";
+
+    // Changes made within this window go out as a single apply()
+    private static final long FLUSH_DELAY_MS = 500;
+
+    private static volatile JourneyStore instance;
+
+    private final Context appContext;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final CountDownLatch prefsLatch = new CountDownLatch(1);
+    private final CountDownLatch journeyLatch = new CountDownLatch(1);
+    private volatile boolean prefsLoaded = false;
+    private volatile boolean journeyLoaded = false;
+    private boolean journeyReady = false; // Main thread's view of journeyLoaded
+    private final List<Runnable> journeyWaiters = new ArrayList<>();
+    private SharedPreferences prefs;
+
+    private long trackerId;
+    private String trackerName;
+    private long startTime;
+    private boolean running;
+    private String theme;
+    private String motivationText; // null = layout default
+    private String labelText;      // null = layout default
+    private boolean notificationEnabled;
+
+    private boolean dirty = false;
+    private boolean flushScheduled = false;
+    private final List<Observer> observers = new ArrayList<>();
+
+    private final Runnable flushRunnable = this::flush;
+
+    /**
+     * First call starts the background load; ReTrackApp makes it early so the load
+     * overlaps with Activity inflation.
+     */
+    public static JourneyStore getInstance(Context context) {
+        if (instance == null) {
+            synchronized (JourneyStore.class) {
+                if (instance == null) {
+                    instance = new JourneyStore(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private JourneyStore(Context appContext) {
+        this.appContext = appContext;
+        new Thread(this::load, "retrack-state").start();
+    }
+
+    private void load() {
+        SharedPreferences p = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        theme = p.getString(KEY_THEME_MODE, THEME_AUTO);
+        motivationText = p.getString(KEY_TEXT_MOTIVATION, null);
+        labelText = p.getString(KEY_TEXT_LABEL, null);
+        notificationEnabled = p.getBoolean(KEY_NOTIFICATION, false);
+        trackerId = p.getLong(KEY_TRACKER_ID, RelapseDbHelper.DEFAULT_TRACKER_ID);
+        RelapseRepository repository = RelapseRepository.getInstance(appContext);
+        repository.setTrackerId(trackerId);
+        prefs = p;
+        // Each latch publishes the fields written before it to whoever awaits it
+        prefsLoaded = true;
+        prefsLatch.countDown();
+
+        RelapseDbHelper db = RelapseDbHelper.getInstance(appContext);
+        if (p.contains(KEY_START_TIME)) {
+            // Pre-tracker state belongs to the default tracker. Safe to repeat if the process
+            // dies before the keys are gone: a running row is kept
+            if (!db.getTracker(RelapseDbHelper.DEFAULT_TRACKER_ID).running && p.getBoolean(KEY_IS_RUNNING, false)) {
+                db.startJourney(RelapseDbHelper.DEFAULT_TRACKER_ID, p.getLong(KEY_START_TIME, 0));
+            }
+            p.edit().remove(KEY_START_TIME).remove(KEY_IS_RUNNING).apply();
+        }
+        Tracker tracker = db.getTracker(trackerId);
+        if (tracker == null) {
+            // Preferences restored without the database they pointed into
+            tracker = db.getTracker(RelapseDbHelper.DEFAULT_TRACKER_ID);
+            trackerId = tracker.id;
+            repository.setTrackerId(trackerId);
+        }
+        trackerName = tracker.name;
+        startTime = tracker.startTime;
+        running = tracker.running;
+        journeyLoaded = true;
+        journeyLatch.countDown();
+        mainHandler.post(this::onJourneyLoaded);
+    }
+
+    private void onJourneyLoaded() {
+        journeyReady = true;
+        List<Runnable> waiters = new ArrayList<>(journeyWaiters);
+        journeyWaiters.clear();
+        for (Runnable waiter : waiters) {
+            waiter.run();
+        }
+        // Observers that skipped the journey state while it was loading catch up here
+        notifyObservers();
+    }
+
+    /**
+     * Blocks until the preferences are in. Only ever waits on a cold start,
+     * and then only for whatever is left of the prefs file read.
+     */
+    private void awaitPrefs() {
+        if (prefsLoaded) return;
+        await(prefsLatch);
+    }
+
+    /**
+     * Blocks until the tracker row is in, which on a cold start includes opening the
+     * database and any pending migration. The main thread goes through
+     * {@link #whenJourneyLoaded} instead.
+     */
+    private void awaitJourney() {
+        if (journeyLoaded) return;
+        await(journeyLatch);
+    }
+
+    private static void await(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Runs {@code action} on the main thread once start time and running flag are in: right
+     * away if they already are, otherwise when the load finishes. Main thread only.
+     */
+    public void whenJourneyLoaded(Runnable action) {
+        if (journeyReady) {
+            action.run();
+        } else {
+            journeyWaiters.add(action);
+        }
+    }
+
+    /**
+     * Whether {@link #getStartTime}, {@link #isRunning} and {@link #getTrackerName} answer without
+     * blocking. Main thread only.
+     */
+    public boolean isJourneyLoaded() {
+        return journeyReady;
+    }
+
+    // --- Reads ---
+
+    public long getTrackerId() {
+        awaitPrefs();
+        return trackerId;
+    }
+
+    public String getTrackerName() {
+        awaitJourney();
+        return trackerName;
+    }
+
+    public long getStartTime() {
+        awaitJourney();
+        return startTime;
+    }
+
+    public boolean isRunning() {
+        awaitJourney();
+        return running;
+    }
+
+    public String getTheme() {
+        awaitPrefs();
+        return theme;
+    }
+
+    public String getMotivationText() {
+        awaitPrefs();
+        return motivationText;
+    }
+
+    public String getLabelText() {
+        awaitPrefs();
+        return labelText;
+    }
+
+    public boolean isNotificationEnabled() {
+        awaitPrefs();
+        return notificationEnabled;
+    }
+
+    // --- Writes ---
+
+    public void startJourney(long startTime) {
+        awaitJourney();
+        this.startTime = startTime;
+        this.running = true;
+        RelapseRepository.getInstance(appContext).startJourney(startTime);
+        notifyObservers();
+    }
+
+    /**
+     * Restarts the streak after a reset. Memory only: the new start was committed along
+     * with the history row by {@link RelapseRepository#addRelapse}.
+     */
+    public void setStartTime(long startTime) {
+        awaitJourney();
+        this.startTime = startTime;
+        notifyObservers();
+    }
+
+    /**
+     * Switches the main screen, widget and history to another tracker. Its row is read on the
+     * repository's worker, behind any write still queued for it, then observers and the
+     * repository's change listeners are told. Main thread only.
+     */
+    public void selectTracker(long trackerId) {
+        awaitJourney();
+        if (trackerId == this.trackerId) return;
+        RelapseRepository repository = RelapseRepository.getInstance(appContext);
+        repository.getTracker(trackerId, tracker -> {
+            if (tracker == null || tracker.id == this.trackerId) return;
+            this.trackerId = tracker.id;
+            trackerName = tracker.name;
+            startTime = tracker.startTime;
+            running = tracker.running;
+            repository.selectTracker(tracker.id);
+            changed();
+        });
+    }
+
+    public void setTheme(String theme) {
+        awaitPrefs();
+        if (theme.equals(this.theme)) return;
+        this.theme = theme;
+        changed();
+    }
+
+    /**
+     * @param key {@link #KEY_TEXT_MOTIVATION} or {@link #KEY_TEXT_LABEL}
+     */
+    public void setCustomText(String key, String text) {
+        awaitPrefs();
+        if (KEY_TEXT_MOTIVATION.equals(key)) {
+            motivationText = text;
+        } else if (KEY_TEXT_LABEL.equals(key)) {
+            labelText = text;
+        } else {
+            throw new IllegalArgumentException("Unknown text key: " + key);
+        }
+        changed();
+    }
+
+    public void setNotificationEnabled(boolean enabled) {
+        awaitPrefs();
+        if (enabled == notificationEnabled) return;
+        notificationEnabled = enabled;
+        changed();
+    }
+
+    public void addObserver(Observer observer) {
+        observers.add(observer);
+    }
+
+    public void removeObserver(Observer observer) {
+        observers.remove(observer);
+    }
+
+    /**
+     * Writes any pending change now. Call when the UI goes to the background.
+     */
+    public void flush() {
+        mainHandler.removeCallbacks(flushRunnable);
+        flushScheduled = false;
+        if (!dirty) return;
+        dirty = false;
+        prefs.edit()
+                .putString(KEY_THEME_MODE, theme)
+                .putString(KEY_TEXT_MOTIVATION, motivationText)
+                .putString(KEY_TEXT_LABEL, labelText)
+                .putBoolean(KEY_NOTIFICATION, notificationEnabled)
+                .putLong(KEY_TRACKER_ID, trackerId)
+                .apply();
+    }
+
+    private void changed() {
+        dirty = true;
+        if (!flushScheduled) {
+            flushScheduled = true;
+            mainHandler.postDelayed(flushRunnable, FLUSH_DELAY_MS);
+        }
+        notifyObservers();
+    }
+
+    private void notifyObservers() {
+        // Copy, an observer may unregister itself while being notified
+        for (Observer observer : new ArrayList<>(observers)) {
+            observer.onJourneyStateChanged(this);
+        }
+    }
+}
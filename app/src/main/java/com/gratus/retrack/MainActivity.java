@@ -1,12 +1,14 @@
 package com.gratus.retrack;
 
-import android.content.SharedPreferences;
+import android.Manifest;
+import android.content.pm.PackageManager;
 import android.content.res.ColorStateList;
+import android.content.res.Configuration;
+import android.content.res.Resources;
 import android.graphics.Color;
 import android.graphics.drawable.ColorDrawable;
+import android.os.Build;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.transition.TransitionManager;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -16,8 +18,11 @@ import android.widget.Button;
 import android.widget.ImageButton;
 import android.widget.ImageView;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.activity.EdgeToEdge;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.app.AppCompatDelegate;
@@ -27,49 +32,86 @@ import androidx.core.view.WindowInsetsCompat;
 
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textfield.TextInputEditText;
+import com.gratus.retrack.helpers.DialogBlurHelper;
+import com.gratus.retrack.helpers.StreakNotifier;
+import com.gratus.retrack.helpers.StreakTicker;
+import com.gratus.retrack.utils.StartupTrace;
+import com.gratus.retrack.utils.TextFormatUtils;
 
-import java.util.Locale;
 import java.util.concurrent.TimeUnit;
 
 public class MainActivity extends AppCompatActivity implements UnifiedDialogFragment.DialogListener {
 
-    private TextView tvDaysFree, tvCountdown, tvMotivation, tvStaticLabel, tvStreak;
+    private TextView tvDaysFree, tvCountdown, tvMotivation, tvStaticLabel, tvStreak, tvStats, tvTracker;
     private ImageButton lightButton, darkButton, autoButton;
     private MaterialButton btnAction;
     private ViewGroup rootLayout;
     private View historyBtn; // Reference for toggling visibility
 
     // Timer components
-    private Handler timerHandler = new Handler(Looper.getMainLooper());
-    private Runnable timerRunnable;
+    private StreakTicker ticker;
     private boolean isJourneyStarted = false;
+    private long shownTrackerId = -1; // Tracker the timer and button were set up for
 
     // Persistence
-    private SharedPreferences prefs;
-    private static final String PREFS_NAME = "ReTrack_config_Prefs";
-    private static final String KEY_START_TIME = "startTime";
-    private static final String KEY_IS_RUNNING = "isRunning";
-    private static final String KEY_THEME_MODE = "theme_mode";
-
-    // New Keys for Custom Text
-    private static final String KEY_TEXT_MOTIVATION = "textMotivation";
-    private static final String KEY_TEXT_LABEL = "textLabel";
+    private JourneyStore store;
+    private RelapseRepository repository;
+    private final Runnable onHistoryChanged = () -> {
+        updateBestStreakDisplay();
+        updateHistoryButtonVisibility();
+    };
+    private final JourneyStore.Observer onJourneyChanged = store -> {
+        loadCustomTexts();
+        // Another tracker was selected: its streak, button state and name. Stats and the history
+        // button follow through the repository's change listener
+        if (store.isJourneyLoaded() && store.getTrackerId() != shownTrackerId) checkStateAndInit();
+    };
 
     // Original button styles to revert to
     private ColorStateList originalBtnBackground;
     private ColorStateList originalBtnTextColor;
     private String originalBtnText = "Reset";
 
+    // Benchmark build hook, "LIVE" or "SNAPSHOT" picks the dialog blur for this launch
+    private static final String EXTRA_BLUR_MODE = "blurMode";
+
+    // Streak notification, enabled by long-pressing the days counter
+    private final ActivityResultLauncher<String> notificationPermission =
+            registerForActivityResult(new ActivityResultContracts.RequestPermission(), granted -> {
+                if (granted) {
+                    setStreakNotification(true);
+                } else {
+                    Toast.makeText(this, "Notifications are blocked for ReTrack", Toast.LENGTH_SHORT).show();
+                }
+            });
+
+    // Until the first stats render, which ends the startup trace
+    private boolean awaitingFirstStats = true;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        StartupTrace.start();
+        StartupTrace.begin("theme");
+        store = JourneyStore.getInstance(this);
         applyTheme();
+        StartupTrace.begin("superOnCreate");
         super.onCreate(savedInstanceState);
         EdgeToEdge.enable(this);
+        StartupTrace.begin("inflate");
         setContentView(R.layout.activity_main);
 
         // 1. Initialize Views
+        StartupTrace.begin("bindViews");
+        if ("benchmark".equals(BuildConfig.BUILD_TYPE)) {
+            // Set on every launch, so a previous run's mode never sticks
+            String blurMode = getIntent().getStringExtra(EXTRA_BLUR_MODE);
+            DialogBlurHelper.setDefaultMode("LIVE".equals(blurMode)
+                    ? DialogBlurHelper.Mode.LIVE : DialogBlurHelper.Mode.SNAPSHOT);
+        }
         rootLayout = findViewById(R.id.main); tvDaysFree = findViewById(R.id.days_free); tvCountdown = findViewById(R.id.countdown); tvMotivation = findViewById(R.id.motivation_text);
         tvStaticLabel = findViewById(R.id.static_text); tvStreak = findViewById(R.id.bestStreak_days); btnAction = findViewById(R.id.start_relapseButton);
+        tvStats = findViewById(R.id.stats_summary); tvTracker = findViewById(R.id.tracker_name);
+        ticker = new StreakTicker(this, tvDaysFree, tvCountdown);
         //tvEditfields = findViewById(R.id.editorTitle);
 
         lightButton = findViewById(R.id.theme_light); darkButton = findViewById(R.id.theme_dark); autoButton = findViewById(R.id.theme_auto);
@@ -80,6 +122,7 @@ public class MainActivity extends AppCompatActivity implements UnifiedDialogFrag
             HistoryBottomSheet bottomSheet = new HistoryBottomSheet();
             bottomSheet.show(getSupportFragmentManager(), "HistorySheet");
         });
+        tvTracker.setOnClickListener(v -> new TrackersBottomSheet().show(getSupportFragmentManager(), "TrackersSheet"));
 
         // Store original styles from XML
         originalBtnBackground = btnAction.getBackgroundTintList(); originalBtnTextColor = btnAction.getTextColors(); originalBtnText = btnAction.getText().toString();
@@ -91,10 +134,21 @@ public class MainActivity extends AppCompatActivity implements UnifiedDialogFrag
         });
 
         // 2. Initialize Persistence
-        prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
+        StartupTrace.begin("restoreState");
+        store.addObserver(onJourneyChanged);
+        repository = RelapseRepository.getInstance(this);
+        // Our own resets and imports both land here
+        repository.addChangeListener(onHistoryChanged);
 
         // 3. Check State and Setup UI
-        checkStateAndInit();
+        // Timer and button wait for the tracker row, which may be behind a migration; the rest of
+        // the screen does not
+        btnAction.setEnabled(false);
+        store.whenJourneyLoaded(() -> {
+            if (isDestroyed()) return;
+            checkStateAndInit();
+            StreakNotifier.sync(this, store); // Re-post after a reboot or a revoked-then-granted permission
+        });
         loadCustomTexts(); // Load the edited texts
         updateHistoryButtonVisibility(); // Check history on load
 
@@ -110,11 +164,16 @@ public class MainActivity extends AppCompatActivity implements UnifiedDialogFrag
         });
 
         // 5. UPDATED Long Click Listeners
+        tvDaysFree.setOnLongClickListener(v -> {
+            toggleStreakNotification();
+            return true;
+        });
+
         tvMotivation.setOnLongClickListener(v -> {
             UnifiedDialogFragment.newEditorInstance(
                     "Change Quote",
                     tvMotivation.getText().toString(),
-                    KEY_TEXT_MOTIVATION
+                    JourneyStore.KEY_TEXT_MOTIVATION
             ).show(getSupportFragmentManager(), "EditorDialog");
             return true;
         });
@@ -123,7 +182,7 @@ public class MainActivity extends AppCompatActivity implements UnifiedDialogFrag
             UnifiedDialogFragment.newEditorInstance(
                     "Change Unit",
                     tvStaticLabel.getText().toString(),
-                    KEY_TEXT_LABEL
+                    JourneyStore.KEY_TEXT_LABEL
             ).show(getSupportFragmentManager(), "EditorDialog");
             return true;
         });
@@ -131,24 +190,25 @@ public class MainActivity extends AppCompatActivity implements UnifiedDialogFrag
         updateBestStreakDisplay();
 
         // Initialize theme buttons
+        StartupTrace.begin("themeButtons");
         setupThemeButtons();
+
+        // Covers the first frame and the stats query, ended in renderStats
+        StartupTrace.begin("firstData");
     }
 
     /**
      * Apply the saved theme or default to 'auto'.
      */
     private void applyTheme() {
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        String theme = prefs.getString(KEY_THEME_MODE, "auto"); // Default to 'auto'
-
-        switch (theme) {
-            case "light":
+        switch (store.getTheme()) {
+            case JourneyStore.THEME_LIGHT:
                 AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_NO);
                 break;
-            case "dark":
+            case JourneyStore.THEME_DARK:
                 AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_YES);
                 break;
-            case "auto":
+            case JourneyStore.THEME_AUTO:
             default:
                 AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_FOLLOW_SYSTEM);
                 break;
@@ -164,46 +224,57 @@ public class MainActivity extends AppCompatActivity implements UnifiedDialogFrag
 //        ImageButton autoButton = findViewById(R.id.theme_auto);
 
         if (lightButton != null && darkButton != null && autoButton != null) {
-            // Get the current theme from SharedPreferences
-            SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-            String currentTheme = prefs.getString(KEY_THEME_MODE, "auto");
+            String currentTheme = store.getTheme();
 
             // Update button visibility based on the current theme
             updateButtonVisibility(currentTheme, lightButton, darkButton, autoButton);
 
             // Set click listeners for the buttons
             lightButton.setOnClickListener(v -> {
-                setThemeAndSave("light");
-                updateButtonVisibility("light", lightButton, darkButton, autoButton);
+                setThemeAndSave(JourneyStore.THEME_LIGHT);
+                updateButtonVisibility(JourneyStore.THEME_LIGHT, lightButton, darkButton, autoButton);
             });
 
             darkButton.setOnClickListener(v -> {
-                setThemeAndSave("dark");
-                updateButtonVisibility("dark", lightButton, darkButton, autoButton);
+                setThemeAndSave(JourneyStore.THEME_DARK);
+                updateButtonVisibility(JourneyStore.THEME_DARK, lightButton, darkButton, autoButton);
             });
 
             autoButton.setOnClickListener(v -> {
-                setThemeAndSave("auto");
-                updateButtonVisibility("auto", lightButton, darkButton, autoButton);
+                setThemeAndSave(JourneyStore.THEME_AUTO);
+                updateButtonVisibility(JourneyStore.THEME_AUTO, lightButton, darkButton, autoButton);
             });
         }
     }
 
     /**
-     * Set the theme and save the selection to SharedPreferences.
+     * Set the theme and save the selection to the journey store.
      */
     private void setThemeAndSave(String theme) {
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        prefs.edit().putString(KEY_THEME_MODE, theme).apply();
-
-        // Log the saved theme
-        System.out.println("Saved theme: " + theme);
+        store.setTheme(theme);
 
-        // Apply the new theme
+        // Apply the new theme. AppCompat recreates the activity itself, and only when the
+        // resolved night mode actually changes. The journey store and repository cache carry
+        // the state across, so the new instance does no prefs or DB reads.
+        if (isNightFor(theme) != isNight(getResources().getConfiguration())) {
+            StartupTrace.markThemeSwitch();
+        }
         applyTheme();
+    }
+
+    private static boolean isNightFor(String theme) {
+        switch (theme) {
+            case JourneyStore.THEME_LIGHT:
+                return false;
+            case JourneyStore.THEME_DARK:
+                return true;
+            default:
+                return isNight(Resources.getSystem().getConfiguration());
+        }
+    }
 
-        // Restart the activity to reflect the theme change
-        recreate();
+    private static boolean isNight(Configuration config) {
+        return (config.uiMode & Configuration.UI_MODE_NIGHT_MASK) == Configuration.UI_MODE_NIGHT_YES;
     }
 
     /**
@@ -211,55 +282,57 @@ public class MainActivity extends AppCompatActivity implements UnifiedDialogFrag
      */
     private void updateButtonVisibility(String currentTheme, ImageButton lightButton, ImageButton darkButton, ImageButton autoButton) {
         switch (currentTheme) {
-            case "light":
+            case JourneyStore.THEME_LIGHT:
                 lightButton.setVisibility(View.GONE);
                 darkButton.setVisibility(View.VISIBLE);
                 autoButton.setVisibility(View.GONE);
-                System.out.println("LIGHT mode - GONE(Light button and Auto button), VISIBLE (Dark button)");
                 break;
-            case "dark":
+            case JourneyStore.THEME_DARK:
                 lightButton.setVisibility(View.GONE);
                 darkButton.setVisibility(View.GONE);
                 autoButton.setVisibility(View.VISIBLE);
-                System.out.println("DARK mode - GONE(Light button and Dark button), VISIBLE (Auto button)");
                 break;
-            case "auto":
+            case JourneyStore.THEME_AUTO:
                 lightButton.setVisibility(View.VISIBLE);
                 darkButton.setVisibility(View.GONE);
                 autoButton.setVisibility(View.GONE);
-                System.out.println("AUTO mode - GONE(Dark button and Auto button), VISIBLE (Light button)");
                 break;
         }
     }
 
 
     private void updateHistoryButtonVisibility() {
-        RelapseDbHelper dbHelper = new RelapseDbHelper(this);
-        if (dbHelper.hasRecords()) {
-            if (historyBtn.getVisibility() != View.VISIBLE) {
-                TransitionManager.beginDelayedTransition(rootLayout); // Animate appearance
-                historyBtn.setVisibility(View.VISIBLE);
+        repository.hasRecords(hasRecords -> {
+            if (hasRecords) {
+                if (historyBtn.getVisibility() != View.VISIBLE) {
+                    TransitionManager.beginDelayedTransition(rootLayout); // Animate appearance
+                    historyBtn.setVisibility(View.VISIBLE);
+                }
+            } else {
+                historyBtn.setVisibility(View.GONE);
             }
-        } else {
-            historyBtn.setVisibility(View.GONE);
-        }
+        });
     }
 
     private void checkStateAndInit() {
-        isJourneyStarted = prefs.getBoolean(KEY_IS_RUNNING, false);
+        shownTrackerId = store.getTrackerId();
+        tvTracker.setText(store.getTrackerName() + " \u25BE"); // {name} ▾
+        isJourneyStarted = store.isRunning();
+        btnAction.setEnabled(true);
 
         if (isJourneyStarted) {
             setRelapseUIState(false);
             startTimerTick();
         } else {
+            ticker.stop(); // The previously selected tracker may have been running
             setStartUIState();
         }
     }
 
     private void loadCustomTexts() {
         // Load saved text or keep default if empty
-        String savedMotivation = prefs.getString(KEY_TEXT_MOTIVATION, null);
-        String savedLabel = prefs.getString(KEY_TEXT_LABEL, null);
+        String savedMotivation = store.getMotivationText();
+        String savedLabel = store.getLabelText();
 
         if (savedMotivation != null) tvMotivation.setText(savedMotivation);
         if (savedLabel != null) tvStaticLabel.setText(savedLabel);
@@ -290,10 +363,7 @@ public class MainActivity extends AppCompatActivity implements UnifiedDialogFrag
 
     private void startJourney() {
         long startTime = System.currentTimeMillis();
-        prefs.edit()
-                .putLong(KEY_START_TIME, startTime)
-                .putBoolean(KEY_IS_RUNNING, true)
-                .apply();
+        store.startJourney(startTime);
 
         isJourneyStarted = true;
         setRelapseUIState(true);
@@ -301,42 +371,28 @@ public class MainActivity extends AppCompatActivity implements UnifiedDialogFrag
     }
 
     private void startTimerTick() {
-        timerHandler.removeCallbacks(timerRunnable);
-        timerRunnable = new Runnable() {
-            @Override
-            public void run() {
-                updateTimerDisplay();
-                timerHandler.postDelayed(this, 1000);
-            }
-        };
-        timerHandler.post(timerRunnable);
+        // Start time is read once here, the ticker keeps it in memory
+        ticker.setStartTime(store.getStartTime());
+        ticker.start();
         updateBestStreakDisplay();
     }
 
-    private void updateTimerDisplay() {
-        long startTime = prefs.getLong(KEY_START_TIME, 0);
-        long currentTime = System.currentTimeMillis();
-        long diff = currentTime - startTime;
-        if (diff < 0) diff = 0;
-
-        long days = TimeUnit.MILLISECONDS.toDays(diff);
-        long hours = TimeUnit.MILLISECONDS.toHours(diff) % 24;
-        long minutes = TimeUnit.MILLISECONDS.toMinutes(diff) % 60;
-        long seconds = TimeUnit.MILLISECONDS.toSeconds(diff) % 60;
-
-        tvDaysFree.setText(String.valueOf(days));
-        String timeFormatted = String.format(Locale.getDefault(),
-                "%01dh %01dm %01ds", hours, minutes, seconds);
-        tvCountdown.setText(timeFormatted);
+    private void updateBestStreakDisplay() {
+        repository.getStats(this::renderStats);
     }
 
-    private void updateBestStreakDisplay() {
-        RelapseDbHelper dbHelper = new RelapseDbHelper(this);
-        long bestDurationMs = dbHelper.getBestStreakDuration();
+    private void renderStats(RelapseStats stats) {
+        if (awaitingFirstStats) {
+            awaitingFirstStats = false;
+            StartupTrace.finish();
+            // Lets the benchmark's StartupTimingMetric report time to full display
+            reportFullyDrawn();
+        }
+
+        long bestDurationMs = stats.bestDuration;
 
         // Also check if current running streak is the best
-        long currentStart = prefs.getLong(KEY_START_TIME, System.currentTimeMillis());
-        long currentDuration = System.currentTimeMillis() - currentStart;
+        long currentDuration = isJourneyStarted ? System.currentTimeMillis() - store.getStartTime() : 0;
 
         if (currentDuration > bestDurationMs) {
             bestDurationMs = currentDuration;
@@ -344,44 +400,85 @@ public class MainActivity extends AppCompatActivity implements UnifiedDialogFrag
 
         long days = TimeUnit.MILLISECONDS.toDays(bestDurationMs);
         tvStreak.setText("\uD83C\uDFC6 " + days + " days"); // 🏆 {days} days
+
+        // Summary line: total resets • average • median • gap to best
+        if (stats.resetCount > 0) {
+            String summary = stats.resetCount + (stats.resetCount == 1 ? " reset" : " resets")
+                    + " \u2022 avg " + TextFormatUtils.formatCompactDuration(stats.getAverageDuration())
+                    + " \u2022 median " + TextFormatUtils.formatCompactDuration(stats.medianDuration);
+            if (isJourneyStarted) {
+                long gap = stats.bestDuration - currentDuration;
+                summary += gap > 0
+                        ? " \u2022 " + TextFormatUtils.formatCompactDuration(gap) + " to best"
+                        : " \u2022 new best";
+            }
+            tvStats.setText(summary);
+            tvStats.setVisibility(View.VISIBLE);
+        } else {
+            tvStats.setVisibility(View.GONE);
+        }
     }
 
     @Override
     public void onRelapseConfirmed(String reason, String steps) {
         // Logic moved here from old showRelapseDialog
         long endTime = System.currentTimeMillis();
-        long startTime = prefs.getLong(KEY_START_TIME, endTime);
-
-        // 1. Save to DB
-        RelapseDbHelper dbHelper = new RelapseDbHelper(this);
-        dbHelper.addRelapse(startTime, endTime, reason, steps);
+        long startTime = store.getStartTime();
+        long trackerId = store.getTrackerId();
+
+        // 1. Save to DB (background). The history row and the new start time commit in one
+        // transaction; the change listener refreshes the DB-backed UI once it has landed
+        repository.addRelapse(startTime, endTime, reason, steps, () -> {
+            // Switched away meanwhile: the row is right and selecting it again reads it back
+            if (store.getTrackerId() != trackerId) return;
+            // 2. Reset Timer (restart re-aligns ticks to the new start) only once committed, so
+            // the store mirrors the tracker row; a failed write leaves the old streak running
+            store.setStartTime(endTime);
+            if (isDestroyed()) return;
+            ticker.setStartTime(endTime);
+            ticker.start();
+        });
+    }
 
-        // 2. Reset Timer
-        prefs.edit().putLong(KEY_START_TIME, endTime).apply();
-        updateTimerDisplay();
+    private void toggleStreakNotification() {
+        boolean enable = !store.isNotificationEnabled();
+        if (enable && Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                && checkSelfPermission(Manifest.permission.POST_NOTIFICATIONS) != PackageManager.PERMISSION_GRANTED) {
+            notificationPermission.launch(Manifest.permission.POST_NOTIFICATIONS);
+            return;
+        }
+        setStreakNotification(enable);
+    }
 
-        // 3. Refresh UI
-        updateBestStreakDisplay();
-        updateHistoryButtonVisibility();
+    private void setStreakNotification(boolean enabled) {
+        // ReTrackApp's store observer posts or cancels the notification
+        store.setNotificationEnabled(enabled);
+        Toast.makeText(this, enabled ? "Streak notification on" : "Streak notification off", Toast.LENGTH_SHORT).show();
     }
 
     @Override
     public void onFieldSaved(String prefsKey, String newValue) {
         // Logic moved here from old showFieldEditor
 
-        // 1. Update the UI immediately
-        if (KEY_TEXT_MOTIVATION.equals(prefsKey)) {
-            tvMotivation.setText(newValue);
-        } else if (KEY_TEXT_LABEL.equals(prefsKey)) {
-            tvStaticLabel.setText(newValue);
-        }
-
-        // 2. Save to Persistence
-        prefs.edit().putString(prefsKey, newValue).apply();
+        // The store observer updates the UI
+        store.setCustomText(prefsKey, newValue);
     }
 
     @Override
     protected void onResume() {
         super.onResume();
     }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        store.flush();
+    }
+
+    @Override
+    protected void onDestroy() {
+        store.removeObserver(onJourneyChanged);
+        repository.removeChangeListener(onHistoryChanged);
+        super.onDestroy();
+    }
 }
\ No newline at end of file
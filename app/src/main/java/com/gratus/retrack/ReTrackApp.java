@@ -0,0 +1,51 @@
+package com.gratus.retrack;
+
+import android.app.Application;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.ApplicationInfo;
+import android.os.StrictMode;
+
+import androidx.core.content.ContextCompat;
+
+import com.gratus.retrack.helpers.StreakNotifier;
+
+public class ReTrackApp extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // Start the journey state load now so it overlaps with MainActivity inflation
+        JourneyStore store = JourneyStore.getInstance(this);
+
+        // Home-screen widget and streak notification follow starts and resets (the widget also
+        // imports); both skip pushes that change nothing
+        store.addObserver(changed -> {
+            StreakWidgetProvider.updateAll(this);
+            StreakNotifier.sync(this, changed);
+        });
+        RelapseRepository.getInstance(this).addChangeListener(() -> StreakWidgetProvider.updateAll(this));
+
+        // Heatmap rollups are bucketed in local days; a change while no process runs is caught
+        // when the database opens
+        ContextCompat.registerReceiver(this, new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                RelapseRepository.getInstance(context).onTimeZoneChanged();
+            }
+        }, new IntentFilter(Intent.ACTION_TIMEZONE_CHANGED), ContextCompat.RECEIVER_NOT_EXPORTED);
+
+        // Debug builds: flag disk I/O on the UI thread and hard-fail on main thread DB access
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                    .detectDiskReads()
+                    .detectDiskWrites()
+                    .penaltyLog()
+                    .build());
+            RelapseDbHelper.setMainThreadAccessForbidden(true);
+        }
+    }
+}
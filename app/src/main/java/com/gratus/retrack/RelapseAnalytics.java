@@ -0,0 +1,119 @@
+package com.gratus.retrack;
+
+import android.database.Cursor;
+
+import java.util.Arrays;
+import java.util.TimeZone;
+
+/**
+ * Distribution and trend of streak lengths over the whole history.
+ * Built in one pass over an (end, duration) cursor ordered oldest first; the columns
+ * go straight into long[] buffers, no RelapseLog is created.
+ */
+public class RelapseAnalytics {
+
+    private static final long HOUR_MS = 60L * 60 * 1000;
+    private static final long DAY_MS = 24 * HOUR_MS;
+    private static final int INITIAL_CAPACITY = 256;
+
+    /** Upper bound (exclusive) of each histogram bucket, the last bucket is open-ended. */
+    public static final long[] HISTOGRAM_BOUNDS = {
+            HOUR_MS, 6 * HOUR_MS, DAY_MS, 3 * DAY_MS, 7 * DAY_MS, 14 * DAY_MS, 30 * DAY_MS, 90 * DAY_MS
+    };
+
+    /** Resets averaged into each point of {@link #rollingAverage}. */
+    public static final int ROLLING_WINDOW = 5;
+
+    public int count;
+
+    /** histogram[i] counts streaks below HISTOGRAM_BOUNDS[i], the extra last slot the rest. */
+    public final int[] histogram = new int[HISTOGRAM_BOUNDS.length + 1];
+
+    /** Resets per local day of week (0 = Sunday) and hour of day, by streak end time. */
+    public final int[] resetsByDayOfWeek = new int[7];
+    public final int[] resetsByHour = new int[24];
+
+    /** Mean of the last ROLLING_WINDOW streaks at each reset, oldest first. */
+    public long[] rollingAverage = new long[0];
+
+    /**
+     * Least-squares slope of streak length against reset number, in ms per reset.
+     * Positive means streaks are getting longer.
+     */
+    public double trendPerReset;
+
+    // Durations ascending in [0, count), for percentiles
+    private long[] sortedDurations = new long[0];
+
+    /**
+     * Nearest-rank percentile of streak length.
+     *
+     * @param p 0..100
+     */
+    public long percentile(double p) {
+        if (count == 0) return 0;
+        int rank = (int) Math.ceil(p / 100.0 * count);
+        return sortedDurations[Math.max(0, Math.min(count - 1, rank - 1))];
+    }
+
+    /**
+     * @param cursor columns (end, duration), oldest first. Not closed here.
+     */
+    static RelapseAnalytics fromCursor(Cursor cursor, TimeZone timeZone) {
+        RelapseAnalytics result = new RelapseAnalytics();
+        // Grown by doubling: getCount() would cost SQLite a separate pass over every row
+        long[] durations = new long[INITIAL_CAPACITY];
+        long[] rolling = new long[INITIAL_CAPACITY];
+
+        // Sums for the trend line, x = reset index, y = duration in hours (keeps xy in range)
+        double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0;
+        long windowSum = 0;
+
+        int i = 0;
+        while (cursor.moveToNext()) {
+            if (i == durations.length) {
+                durations = Arrays.copyOf(durations, i * 2);
+                rolling = Arrays.copyOf(rolling, i * 2);
+            }
+            long end = cursor.getLong(0);
+            long duration = cursor.getLong(1);
+            durations[i] = duration;
+
+            result.histogram[bucketOf(duration)]++;
+
+            long local = end + timeZone.getOffset(end);
+            long epochDay = Math.floorDiv(local, DAY_MS);
+            // 1970-01-01 was a Thursday
+            result.resetsByDayOfWeek[(int) Math.floorMod(epochDay + 4, 7)]++;
+            result.resetsByHour[(int) (Math.floorMod(local, DAY_MS) / HOUR_MS)]++;
+
+            windowSum += duration;
+            if (i >= ROLLING_WINDOW) windowSum -= durations[i - ROLLING_WINDOW];
+            rolling[i] = windowSum / Math.min(i + 1, ROLLING_WINDOW);
+
+            double y = (double) duration / HOUR_MS;
+            sumX += i;
+            sumY += y;
+            sumXY += i * y;
+            sumXX += (double) i * i;
+            i++;
+        }
+
+        result.count = i;
+        result.rollingAverage = Arrays.copyOf(rolling, i);
+        double denominator = i * sumXX - sumX * sumX;
+        result.trendPerReset = denominator == 0 ? 0 : (i * sumXY - sumX * sumY) / denominator * HOUR_MS;
+
+        // The only O(n log n) step, on a primitive array
+        Arrays.sort(durations, 0, i);
+        result.sortedDurations = durations;
+        return result;
+    }
+
+    private static int bucketOf(long duration) {
+        for (int b = 0; b < HISTOGRAM_BOUNDS.length; b++) {
+            if (duration < HISTOGRAM_BOUNDS[b]) return b;
+        }
+        return HISTOGRAM_BOUNDS.length;
+    }
+}
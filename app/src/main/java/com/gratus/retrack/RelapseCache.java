@@ -0,0 +1,126 @@
+package com.gratus.retrack;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Process-wide hot cache in front of {@link RelapseDbHelper}, owned by {@link RelapseRepository}.
+ * Holds the selected tracker's stats row, analytics and newest {@link #HEAD_CAPACITY} history rows;
+ * asking for any other tracker is a miss. Inserts are written through to the head; anything else
+ * that writes (imports) invalidates the whole cache, as does selecting another tracker.
+ * Every write bumps a generation number. Readers take {@link #getGeneration()} before going
+ * to the DB and pass it back with the result, so a read that raced a write is never cached.
+ */
+public class RelapseCache {
+
+    public static final int HEAD_CAPACITY = HistoryPager.PAGE_SIZE;
+
+    private RelapseStats stats;          // null = not loaded
+    private RelapseAnalytics analytics;  // null = not computed since the last write
+    private List<RelapseLog> head;       // Newest first, null = not loaded
+    private boolean headIsComplete;      // head holds every row in the table
+
+    private long trackerId = RelapseDbHelper.DEFAULT_TRACKER_ID;
+    private long generation = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+
+    public synchronized RelapseStats getStats(long trackerId) {
+        if (trackerId != this.trackerId || stats == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return stats;
+    }
+
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    public synchronized void putStats(long trackerId, RelapseStats stats, long readAt) {
+        if (trackerId != this.trackerId || readAt != generation) return;
+        this.stats = stats;
+    }
+
+    public synchronized RelapseAnalytics getAnalytics(long trackerId) {
+        if (trackerId != this.trackerId || analytics == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return analytics;
+    }
+
+    public synchronized void putAnalytics(long trackerId, RelapseAnalytics analytics, long readAt) {
+        if (trackerId != this.trackerId || readAt != generation) return;
+        this.analytics = analytics;
+    }
+
+    /**
+     * Newest {@code limit} rows, or null if the cache cannot answer that without the DB.
+     */
+    public synchronized List<RelapseLog> getHead(long trackerId, int limit) {
+        if (trackerId != this.trackerId || head == null || limit > HEAD_CAPACITY
+                || (head.size() < limit && !headIsComplete)) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return new ArrayList<>(head.subList(0, Math.min(limit, head.size())));
+    }
+
+    public synchronized void putHead(long trackerId, List<RelapseLog> newestFirst, int requested, long readAt) {
+        // Read before the last write (may miss or hold stale rows) or for another tracker
+        if (trackerId != this.trackerId || readAt != generation) return;
+        head = new ArrayList<>(newestFirst.subList(0, Math.min(HEAD_CAPACITY, newestFirst.size())));
+        headIsComplete = newestFirst.size() < requested;
+    }
+
+    /**
+     * Write-through for addRelapse. The stats row and analytics are dropped because the
+     * median and percentiles need the DB. Rows of other trackers leave the cache alone.
+     */
+    public synchronized void onInsert(long trackerId, RelapseLog log) {
+        if (trackerId != this.trackerId) return;
+        generation++;
+        stats = null;
+        analytics = null;
+        if (head == null) return;
+        if (!head.isEmpty() && log.endTime < head.get(0).endTime) {
+            // Back-dated row lands mid-list, cheaper to reload than to place it
+            head = null;
+            return;
+        }
+        head.add(0, log);
+        if (head.size() > HEAD_CAPACITY) {
+            head.remove(head.size() - 1);
+            headIsComplete = false;
+        }
+    }
+
+    /**
+     * Drops everything and holds {@code trackerId}'s data from now on.
+     */
+    public synchronized void setTracker(long trackerId) {
+        this.trackerId = trackerId;
+        invalidate();
+    }
+
+    public synchronized void invalidate() {
+        generation++;
+        stats = null;
+        analytics = null;
+        head = null;
+        headIsComplete = false;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
@@ -1,19 +1,58 @@
 package com.gratus.retrack;
 
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Build;
+import android.os.Looper;
 
+import androidx.annotation.VisibleForTesting;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TimeZone;
 
 public class RelapseDbHelper extends SQLiteOpenHelper {
 
     private static final String DB_NAME = "retrack_data.db";
-    private static final int DB_VERSION = 1;
+    // Schema history:
+    //  v1 - relapse_history table
+    //  v2 - trackers table, relapse_history.tracker_id
+    //  v3 - index on (tracker_id, streak_end_ts) for keyset paging
+    //  v4 - index on (tracker_id, streak_duration_ms) for the best-streak MAX() and the median
+    //  v5 - relapse_stats table, one row per tracker, maintained in addRelapse's transaction
+    //  v6 - index on (streak_start_ts, streak_end_ts) for de-duplicating imports
+    //  v7 - relapse_fts external-content FTS4 index over reasons and next steps, kept by triggers
+    //  v8 - relapse_daily / relapse_monthly per-tracker rollups for the heatmap, maintained in addRelapse's transaction
+    //  v9 - trackers.start_ts / is_running: journey state, written in addRelapse's transaction
+    //  v10 - relapse_rollup_zone: the time zone the rollups are bucketed in
+    private static final int DB_VERSION = 10;
     public static final String TABLE_RELAPSE = "relapse_history";
+    public static final String TABLE_STATS = "relapse_stats";
+    public static final String TABLE_FTS = "relapse_fts";
+    public static final String TABLE_TRACKERS = "trackers";
+    public static final String TABLE_DAILY = "relapse_daily";
+    public static final String TABLE_MONTHLY = "relapse_monthly";
+    private static final String TABLE_ROLLUP_ZONE = "relapse_rollup_zone";
+
+    // Every row written before v2 belongs to this tracker, it is also the one selected on first launch
+    public static final long DEFAULT_TRACKER_ID = 1;
 
     // Columns
     private static final String COL_START = "streak_start_ts";
@@ -21,9 +60,114 @@ public class RelapseDbHelper extends SQLiteOpenHelper {
     private static final String COL_DURATION = "streak_duration_ms";
     private static final String COL_REASON = "why_it_happened";
     private static final String COL_STEPS = "next_steps";
+    private static final String COL_TRACKER_ID = "tracker_id";
+
+    // Tracker columns
+    private static final String COL_TRACKER_NAME = "name";
+    private static final String COL_TRACKER_CREATED = "created_ts";
+    private static final String COL_TRACKER_START = "start_ts";
+    private static final String COL_TRACKER_RUNNING = "is_running";
+
+    // Column order of queryHistoryChronological(), also the header of text exports
+    public static final String[] HISTORY_COLUMNS = {
+            "id", COL_START, COL_END, COL_DURATION, COL_REASON, COL_STEPS
+    };
+
+    // Column order read by readTracker()
+    private static final String[] TRACKER_COLUMNS = {
+            "id", COL_TRACKER_NAME, COL_TRACKER_CREATED, COL_TRACKER_START, COL_TRACKER_RUNNING
+    };
+
+    // Stats columns (one row per tracker, id = tracker id)
+    private static final String COL_RESET_COUNT = "reset_count";
+    private static final String COL_TOTAL_DURATION = "total_duration_ms";
+    private static final String COL_BEST_DURATION = "best_duration_ms";
+    private static final String COL_MEDIAN_DURATION = "median_duration_ms";
+    private static final String COL_LAST_END = "last_end_ts";
+
+    // Indexes
+    private static final String IDX_TRACKER_END = "idx_relapse_tracker_end";
+    private static final String IDX_TRACKER_DURATION = "idx_relapse_tracker_duration";
+    private static final String IDX_START_END = "idx_relapse_start_end";
+
+    // Relative weight of a match in each FTS column, same order as the FTS table
+    private static final double[] FTS_COLUMN_WEIGHTS = {1.0, 0.6};
+    // Tokens of context on each side of a match in a snippet
+    private static final int SNIPPET_TOKENS = 16;
+    // Search ranks at most this many of the newest matches per result it returns
+    private static final int SEARCH_CANDIDATES_PER_HIT = 4;
+
+    // Rows per transaction when importing, one fsync per batch instead of per row
+    private static final int IMPORT_BATCH_SIZE = 500;
+
+    // App-scoped instance, the connection stays open for the lifetime of the process
+    private static volatile RelapseDbHelper instance;
+
+    // Test/debug mode: any access from the main looper throws instead of silently hitting disk
+    private static volatile boolean mainThreadAccessForbidden = false;
 
-    public RelapseDbHelper(Context context) {
-        super(context, DB_NAME, null, DB_VERSION);
+    // Compiled once and reused, guarded by "this"
+    private SQLiteStatement insertStatement;
+    private SQLiteStatement statsInsertStatement;
+    private SQLiteStatement bestStreakStatement;
+    private SQLiteStatement hasRecordsStatement;
+    private SQLiteStatement countStatement;
+    private RollupWriter rollupWriter;
+    private SQLiteStatement restartStatement;
+
+    /**
+     * Returns the shared helper. Always bound to the application context so an
+     * Activity never leaks through the singleton.
+     */
+    public static RelapseDbHelper getInstance(Context context) {
+        if (instance == null) {
+            synchronized (RelapseDbHelper.class) {
+                if (instance == null) {
+                    instance = new RelapseDbHelper(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private RelapseDbHelper(Context context) {
+        this(context, DB_NAME);
+    }
+
+    // Separate file for instrumented tests, never the user's data
+    @VisibleForTesting
+    RelapseDbHelper(Context context, String name) {
+        super(context, name, null, DB_VERSION);
+        // WAL lets the UI read while a write is in flight and avoids an fsync of the main file per insert
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    /**
+     * When enabled, every CRUD call made on the main looper throws an
+     * {@link IllegalStateException}. Turned on for debuggable builds in {@link ReTrackApp}.
+     */
+    public static void setMainThreadAccessForbidden(boolean forbidden) {
+        mainThreadAccessForbidden = forbidden;
+    }
+
+    private static void checkNotMainThread() {
+        if (mainThreadAccessForbidden && Looper.myLooper() == Looper.getMainLooper()) {
+            throw new IllegalStateException("Database accessed on the main thread, use RelapseRepository");
+        }
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        // Under WAL, NORMAL syncs the log at checkpoints instead of on every commit. A commit is
+        // still atomic and survives a process crash; a power loss can only drop the newest
+        // commits, whole. Runs after the framework's own WAL setup, so this is what applies.
+        db.execSQL("PRAGMA synchronous = NORMAL");
+    }
+
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        // A zone change while no process was running is never broadcast to us
+        if (!db.isReadOnly()) syncRollupZone(db);
     }
 
     @Override
@@ -38,70 +182,854 @@ public class RelapseDbHelper extends SQLiteOpenHelper {
                         COL_STEPS + " TEXT" +
                         ")"
         );
+        // Bring a fresh v1 table up to the current schema through the same path as upgrades
+        onUpgrade(db, 1, DB_VERSION);
     }
 
+    /**
+     * Steps the schema forward one version at a time. SQLiteOpenHelper wraps this
+     * in a transaction, so a failing step leaves the old schema and data untouched.
+     */
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // No migration needed yet
+        for (int version = oldVersion + 1; version <= newVersion; version++) {
+            migrateTo(db, version);
+        }
+    }
+
+    // Each case upgrades from (version - 1) to version. Never edit a shipped case, add a new one.
+    private static void migrateTo(SQLiteDatabase db, int version) {
+        switch (version) {
+            case 2:
+                db.execSQL(
+                        "CREATE TABLE " + TABLE_TRACKERS + " (" +
+                                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                                COL_TRACKER_NAME + " TEXT NOT NULL," +
+                                COL_TRACKER_CREATED + " INTEGER NOT NULL" +
+                                ")"
+                );
+                db.execSQL("INSERT INTO " + TABLE_TRACKERS + " (id, " + COL_TRACKER_NAME + ", " + COL_TRACKER_CREATED + ") " +
+                        "VALUES (" + DEFAULT_TRACKER_ID + ", 'Default', " + System.currentTimeMillis() + ")");
+                // Existing rows land on the default tracker through the column default, no rewrite needed
+                db.execSQL("ALTER TABLE " + TABLE_RELAPSE + " ADD COLUMN " + COL_TRACKER_ID +
+                        " INTEGER NOT NULL DEFAULT " + DEFAULT_TRACKER_ID + " REFERENCES " + TABLE_TRACKERS + "(id)");
+                break;
+            case 3:
+                // Keyset paging walks one tracker's range of this index backwards. The rowid (id) is
+                // implicitly the trailing index column, so (end, id) ordering is served without a sort.
+                db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_TRACKER_END + " ON " + TABLE_RELAPSE +
+                        " (" + COL_TRACKER_ID + ", " + COL_END + ")");
+                break;
+            case 4:
+                // Per-tracker MAX(duration) is one seek to the end of the tracker's index range
+                db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_TRACKER_DURATION + " ON " + TABLE_RELAPSE +
+                        " (" + COL_TRACKER_ID + ", " + COL_DURATION + ")");
+                break;
+            case 5:
+                db.execSQL(
+                        "CREATE TABLE " + TABLE_STATS + " (" +
+                                "id INTEGER PRIMARY KEY REFERENCES " + TABLE_TRACKERS + "(id)," +
+                                COL_RESET_COUNT + " INTEGER NOT NULL DEFAULT 0," +
+                                COL_TOTAL_DURATION + " INTEGER NOT NULL DEFAULT 0," +
+                                COL_BEST_DURATION + " INTEGER NOT NULL DEFAULT 0," +
+                                COL_MEDIAN_DURATION + " INTEGER NOT NULL DEFAULT 0," +
+                                COL_LAST_END + " INTEGER NOT NULL DEFAULT 0" +
+                                ")"
+                );
+                rebuildStats(db);
+                break;
+            case 6:
+                db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_START_END + " ON " + TABLE_RELAPSE +
+                        " (" + COL_START + ", " + COL_END + ")");
+                break;
+            case 7:
+                // External content: the index stores only tokens, the text stays in relapse_history
+                db.execSQL("CREATE VIRTUAL TABLE " + TABLE_FTS + " USING fts4(content=\"" + TABLE_RELAPSE + "\", " +
+                        COL_REASON + ", " + COL_STEPS + ")");
+                // The delete side reads the old text back from the content table, so it must run BEFORE
+                db.execSQL("CREATE TRIGGER relapse_fts_bu BEFORE UPDATE ON " + TABLE_RELAPSE + " BEGIN " +
+                        "DELETE FROM " + TABLE_FTS + " WHERE docid = old.id; END");
+                db.execSQL("CREATE TRIGGER relapse_fts_bd BEFORE DELETE ON " + TABLE_RELAPSE + " BEGIN " +
+                        "DELETE FROM " + TABLE_FTS + " WHERE docid = old.id; END");
+                db.execSQL("CREATE TRIGGER relapse_fts_au AFTER UPDATE ON " + TABLE_RELAPSE + " BEGIN " +
+                        "INSERT INTO " + TABLE_FTS + " (docid, " + COL_REASON + ", " + COL_STEPS + ") " +
+                        "VALUES (new.id, new." + COL_REASON + ", new." + COL_STEPS + "); END");
+                db.execSQL("CREATE TRIGGER relapse_fts_ai AFTER INSERT ON " + TABLE_RELAPSE + " BEGIN " +
+                        "INSERT INTO " + TABLE_FTS + " (docid, " + COL_REASON + ", " + COL_STEPS + ") " +
+                        "VALUES (new.id, new." + COL_REASON + ", new." + COL_STEPS + "); END");
+                // Index the rows that already exist
+                db.execSQL("INSERT INTO " + TABLE_FTS + " (" + TABLE_FTS + ") VALUES ('rebuild')");
+                break;
+            case 8:
+                // Keyed by tracker, then local epoch day or month index (year * 12 + month - 1), see
+                // CalendarDays. Clustered on that key, so a tracker's date range is one b-tree range scan.
+                db.execSQL(
+                        "CREATE TABLE " + TABLE_DAILY + " (" +
+                                COL_TRACKER_ID + " INTEGER NOT NULL," +
+                                "day INTEGER NOT NULL," +
+                                "clean_ms INTEGER NOT NULL DEFAULT 0," +
+                                "resets INTEGER NOT NULL DEFAULT 0," +
+                                "PRIMARY KEY (" + COL_TRACKER_ID + ", day)" +
+                                ") WITHOUT ROWID"
+                );
+                db.execSQL(
+                        "CREATE TABLE " + TABLE_MONTHLY + " (" +
+                                COL_TRACKER_ID + " INTEGER NOT NULL," +
+                                "month INTEGER NOT NULL," +
+                                "clean_ms INTEGER NOT NULL DEFAULT 0," +
+                                "resets INTEGER NOT NULL DEFAULT 0," +
+                                "reset_days INTEGER NOT NULL DEFAULT 0," +
+                                "PRIMARY KEY (" + COL_TRACKER_ID + ", month)" +
+                                ") WITHOUT ROWID"
+                );
+                rebuildRollups(db);
+                break;
+            case 9:
+                // Journey state moves here from SharedPreferences, see JourneyStore for the one-time import
+                db.execSQL("ALTER TABLE " + TABLE_TRACKERS + " ADD COLUMN " + COL_TRACKER_START + " INTEGER NOT NULL DEFAULT 0");
+                db.execSQL("ALTER TABLE " + TABLE_TRACKERS + " ADD COLUMN " + COL_TRACKER_RUNNING + " INTEGER NOT NULL DEFAULT 0");
+                break;
+            case 10:
+                // Single row. The rollups were bucketed in the default zone when v8 built them
+                db.execSQL("CREATE TABLE " + TABLE_ROLLUP_ZONE + " (id INTEGER PRIMARY KEY, zone_id TEXT NOT NULL)");
+                storeRollupZone(db, TimeZone.getDefault());
+                break;
+            default:
+                throw new IllegalStateException("No migration defined for schema v" + version);
+        }
+    }
+
+    /**
+     * Pull-style row stream for imports. Returns null once exhausted.
+     */
+    public interface RelapseSource {
+        RelapseLog next() throws IOException;
     }
 
     // --- CRUD OPERATIONS ---
+    // Note: none of these close the database. The helper owns one long-lived connection.
+
+    /**
+     * Inserts the record on {@code trackerId}, folds it into the tracker's relapse_stats row and
+     * rollups, and restarts the tracker at {@code end}, all in one transaction. The stats row can
+     * never disagree with the history table, and a crash can never leave a reset recorded
+     * without the new streak start (or the other way round).
+     *
+     * @return the new row id
+     */
+    public synchronized long addRelapse(long trackerId, long start, long end, String reason, String steps) {
+        checkNotMainThread();
+        SQLiteDatabase db = getWritableDatabase();
+        compileInsertStatements(db);
+        long duration = end - start;
+        long id;
+
+        db.beginTransaction();
+        try {
+            id = bindAndInsert(trackerId, start, end, reason, steps);
+
+            bindStatsInsert(trackerId, duration, end);
+            statsInsertStatement.executeUpdateDelete();
+            refreshMedian(db, trackerId);
+            rollupWriter.fold(trackerId, start, end, rollupZone(db));
 
-    public void addRelapse(long start, long end, String reason, String steps) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(COL_START, start);
-        values.put(COL_END, end);
-        values.put(COL_DURATION, end - start);
-        values.put(COL_REASON, reason);
-        values.put(COL_STEPS, steps);
-        db.insert(TABLE_RELAPSE, null, values);
-        db.close();
+            restartStatement.bindLong(1, end);
+            restartStatement.bindLong(2, trackerId);
+            restartStatement.executeUpdateDelete();
+
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return id;
+    }
+
+    /**
+     * Bulk insert onto {@code trackerId} from a streaming source. Rows go in batched transactions
+     * through the same compiled INSERT, rows whose (start, end) the tracker already has are
+     * skipped. Each row is folded into the tracker's relapse_stats row and rollups inside its
+     * batch, and the median is refreshed before every commit, so no committed state has rows the
+     * aggregates miss.
+     *
+     * @return number of rows actually inserted
+     */
+    public synchronized int importRelapses(long trackerId, RelapseSource source) throws IOException {
+        checkNotMainThread();
+        SQLiteDatabase db = getWritableDatabase();
+        compileInsertStatements(db);
+        SQLiteStatement existsStatement = db.compileStatement(
+                "SELECT COUNT(*) FROM " + TABLE_RELAPSE + " WHERE " + COL_START + " = ? AND " + COL_END + " = ?" +
+                        " AND " + COL_TRACKER_ID + " = ?");
+
+        int inserted = 0;
+        int inBatch = 0;
+        db.beginTransaction();
+        try {
+            TimeZone zone = rollupZone(db);
+            RelapseLog log;
+            while ((log = source.next()) != null) {
+                existsStatement.bindLong(1, log.startTime);
+                existsStatement.bindLong(2, log.endTime);
+                existsStatement.bindLong(3, trackerId);
+                if (existsStatement.simpleQueryForLong() > 0) continue;
+
+                bindAndInsert(trackerId, log.startTime, log.endTime, log.reason, log.nextSteps);
+                bindStatsInsert(trackerId, log.endTime - log.startTime, log.endTime);
+                statsInsertStatement.executeUpdateDelete();
+                rollupWriter.fold(trackerId, log.startTime, log.endTime, zone);
+                inserted++;
+
+                if (++inBatch == IMPORT_BATCH_SIZE) {
+                    refreshMedian(db, trackerId);
+                    db.setTransactionSuccessful();
+                    db.endTransaction();
+                    db.beginTransaction();
+                    inBatch = 0;
+                }
+            }
+            if (inBatch > 0) refreshMedian(db, trackerId);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            existsStatement.close();
+        }
+        return inserted;
+    }
+
+    private void compileInsertStatements(SQLiteDatabase db) {
+        if (insertStatement == null) {
+            insertStatement = db.compileStatement(
+                    "INSERT INTO " + TABLE_RELAPSE + " (" +
+                            COL_TRACKER_ID + ", " + COL_START + ", " + COL_END + ", " + COL_DURATION + ", " +
+                            COL_REASON + ", " + COL_STEPS + ") VALUES (?, ?, ?, ?, ?, ?)");
+            statsInsertStatement = db.compileStatement(
+                    "UPDATE " + TABLE_STATS + " SET " +
+                            COL_RESET_COUNT + " = " + COL_RESET_COUNT + " + 1, " +
+                            COL_TOTAL_DURATION + " = " + COL_TOTAL_DURATION + " + ?1, " +
+                            COL_BEST_DURATION + " = MAX(" + COL_BEST_DURATION + ", ?1), " +
+                            COL_LAST_END + " = MAX(" + COL_LAST_END + ", ?2) " +
+                            "WHERE id = ?3");
+            rollupWriter = new RollupWriter(db);
+            restartStatement = db.compileStatement(
+                    "UPDATE " + TABLE_TRACKERS + " SET " + COL_TRACKER_START + " = ?, " +
+                            COL_TRACKER_RUNNING + " = 1 WHERE id = ?");
+        }
+    }
+
+    private long bindAndInsert(long trackerId, long start, long end, String reason, String steps) {
+        insertStatement.clearBindings();
+        insertStatement.bindLong(1, trackerId);
+        insertStatement.bindLong(2, start);
+        insertStatement.bindLong(3, end);
+        insertStatement.bindLong(4, end - start);
+        bindNullableString(insertStatement, 5, reason);
+        bindNullableString(insertStatement, 6, steps);
+        return insertStatement.executeInsert();
+    }
+
+    private void bindStatsInsert(long trackerId, long duration, long end) {
+        statsInsertStatement.bindLong(1, duration);
+        statsInsertStatement.bindLong(2, end);
+        statsInsertStatement.bindLong(3, trackerId);
+    }
+
+    /**
+     * Single O(1) read of every aggregate the main screen shows for one tracker.
+     */
+    public RelapseStats getStats(long trackerId) {
+        checkNotMainThread();
+        Cursor cursor = getReadableDatabase().rawQuery(
+                "SELECT " + COL_RESET_COUNT + ", " + COL_TOTAL_DURATION + ", " + COL_BEST_DURATION + ", " +
+                        COL_MEDIAN_DURATION + ", " + COL_LAST_END + " FROM " + TABLE_STATS + " WHERE id = ?",
+                new String[]{String.valueOf(trackerId)});
+        RelapseStats stats = new RelapseStats();
+        if (cursor.moveToFirst()) {
+            stats.resetCount = cursor.getInt(0);
+            stats.totalDuration = cursor.getLong(1);
+            stats.bestDuration = cursor.getLong(2);
+            stats.medianDuration = cursor.getLong(3);
+            stats.lastEndTime = cursor.getLong(4);
+        }
+        cursor.close();
+        return stats;
     }
 
-    public List<RelapseLog> getAllRelapses() {
-        List<RelapseLog> list = new ArrayList<>();
+    /**
+     * Recomputes relapse_stats from scratch. Writes keep it current, this is for repairs and tests.
+     */
+    public synchronized void rebuildStats() {
+        checkNotMainThread();
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            rebuildStats(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // One row per tracker, trackers without history get a zero row
+    private static void rebuildStats(SQLiteDatabase db) {
+        db.execSQL("DELETE FROM " + TABLE_STATS);
+        db.execSQL(
+                "INSERT INTO " + TABLE_STATS + " (id, " + COL_RESET_COUNT + ", " + COL_TOTAL_DURATION + ", " +
+                        COL_BEST_DURATION + ", " + COL_LAST_END + ") " +
+                        "SELECT t.id, COUNT(r.id), IFNULL(SUM(r." + COL_DURATION + "), 0), IFNULL(MAX(r." + COL_DURATION + "), 0), " +
+                        "IFNULL(MAX(r." + COL_END + "), 0) FROM " + TABLE_TRACKERS + " t LEFT JOIN " + TABLE_RELAPSE +
+                        " r ON r." + COL_TRACKER_ID + " = t.id GROUP BY t.id");
+        Cursor trackers = db.rawQuery("SELECT id FROM " + TABLE_TRACKERS, null);
+        try {
+            while (trackers.moveToNext()) {
+                refreshMedian(db, trackers.getLong(0));
+            }
+        } finally {
+            trackers.close();
+        }
+    }
+
+    // The median can't be folded in incrementally, so it is re-read from the tracker's range of
+    // the duration index (an O(n/2) index walk) on the rare write, which keeps the read side O(1).
+    private static void refreshMedian(SQLiteDatabase db, long trackerId) {
+        String[] args = {String.valueOf(trackerId)};
+        long count = DatabaseUtils.longForQuery(db,
+                "SELECT " + COL_RESET_COUNT + " FROM " + TABLE_STATS + " WHERE id = ?", args);
+        long median = 0;
+        if (count > 0) {
+            long offset = (count - 1) / 2;
+            long limit = (count % 2 == 0) ? 2 : 1;
+            median = DatabaseUtils.longForQuery(db,
+                    "SELECT CAST(AVG(d) AS INTEGER) FROM (SELECT " + COL_DURATION + " AS d FROM " + TABLE_RELAPSE +
+                            " WHERE " + COL_TRACKER_ID + " = ? ORDER BY " + COL_DURATION +
+                            " LIMIT " + limit + " OFFSET " + offset + ")", args);
+        }
+        db.execSQL("UPDATE " + TABLE_STATS + " SET " + COL_MEDIAN_DURATION + " = " + median + " WHERE id = ?", args);
+    }
+
+    /**
+     * Recomputes the heatmap rollups from scratch, in the current time zone. Writes keep them
+     * current and a zone change is caught by {@link #syncRollupZone}, this is for repairs and tests.
+     */
+    public synchronized void rebuildRollups() {
+        checkNotMainThread();
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            TimeZone zone = TimeZone.getDefault();
+            rebuildRollups(db, zone);
+            storeRollupZone(db, zone);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Zone the rollups are bucketed in. If the device zone changed since they were written,
+     * they are rebuilt in the new zone first, so a fold never mixes two zones' days.
+     * Call inside a write transaction.
+     */
+    private TimeZone rollupZone(SQLiteDatabase db) {
+        TimeZone zone = TimeZone.getDefault();
+        if (!zone.getID().equals(readRollupZone(db))) {
+            rebuildRollups(db, zone);
+            storeRollupZone(db, zone);
+        }
+        return zone;
+    }
+
+    /**
+     * Rebuilds the rollups if the device zone changed since they were bucketed. Runs when the
+     * database opens and on ACTION_TIMEZONE_CHANGED, so heatmap reads stay a plain range read.
+     *
+     * @return whether the rollups were rebuilt
+     */
+    public synchronized boolean syncRollupZone() {
+        checkNotMainThread();
+        return syncRollupZone(getWritableDatabase());
+    }
+
+    private boolean syncRollupZone(SQLiteDatabase db) {
+        if (TimeZone.getDefault().getID().equals(readRollupZone(db))) return false;
+        db.beginTransaction();
+        try {
+            rollupZone(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return true;
+    }
+
+    private static String readRollupZone(SQLiteDatabase db) {
+        return DatabaseUtils.stringForQuery(db, "SELECT zone_id FROM " + TABLE_ROLLUP_ZONE + " WHERE id = 1", null);
+    }
+
+    private static void storeRollupZone(SQLiteDatabase db, TimeZone zone) {
+        db.execSQL("INSERT OR REPLACE INTO " + TABLE_ROLLUP_ZONE + " (id, zone_id) VALUES (1, ?)",
+                new Object[]{zone.getID()});
+    }
+
+    private static void rebuildRollups(SQLiteDatabase db) {
+        rebuildRollups(db, TimeZone.getDefault());
+    }
+
+    // One pass over the history, each streak folded into its tracker exactly as addRelapse would
+    private static void rebuildRollups(SQLiteDatabase db, TimeZone zone) {
+        db.execSQL("DELETE FROM " + TABLE_DAILY);
+        db.execSQL("DELETE FROM " + TABLE_MONTHLY);
+        RollupWriter writer = new RollupWriter(db);
+        Cursor cursor = db.query(TABLE_RELAPSE, new String[]{COL_TRACKER_ID, COL_START, COL_END},
+                null, null, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                writer.fold(cursor.getLong(0), cursor.getLong(1), cursor.getLong(2), zone);
+            }
+        } finally {
+            cursor.close();
+            writer.close();
+        }
+    }
+
+    /**
+     * One cell per local day in [fromDay, toDay] (epoch days), a single range read of relapse_daily.
+     */
+    public RollupCells getDailyRollups(long trackerId, long fromDay, long toDay) {
+        return readRollups(TABLE_DAILY, "day", trackerId, fromDay, toDay);
+    }
+
+    /**
+     * One cell per month in [fromMonth, toMonth] (year * 12 + month - 1).
+     */
+    public RollupCells getMonthlyRollups(long trackerId, long fromMonth, long toMonth) {
+        return readRollups(TABLE_MONTHLY, "month", trackerId, fromMonth, toMonth);
+    }
+
+    private RollupCells readRollups(String table, String keyColumn, long trackerId, long from, long to) {
+        checkNotMainThread();
+        RollupCells cells = new RollupCells(from, (int) Math.max(0, to - from + 1));
+        Cursor cursor = getReadableDatabase().rawQuery(
+                "SELECT " + keyColumn + ", clean_ms, resets FROM " + table +
+                        " WHERE " + COL_TRACKER_ID + " = ? AND " + keyColumn + " BETWEEN ? AND ?",
+                new String[]{String.valueOf(trackerId), String.valueOf(from), String.valueOf(to)});
+        try {
+            while (cursor.moveToNext()) {
+                int i = (int) (cursor.getLong(0) - from);
+                cells.cleanMs[i] = cursor.getLong(1);
+                cells.resets[i] = cursor.getInt(2);
+            }
+        } finally {
+            cursor.close();
+        }
+        return cells;
+    }
+
+    public List<RelapseLog> getAllRelapses(long trackerId) {
+        checkNotMainThread();
         SQLiteDatabase db = this.getReadableDatabase();
         // Order by newest first
-        Cursor cursor = db.rawQuery("SELECT * FROM " + TABLE_RELAPSE + " ORDER BY " + COL_END + " DESC", null);
+        Cursor cursor = db.rawQuery("SELECT * FROM " + TABLE_RELAPSE + " WHERE " + COL_TRACKER_ID + " = ?" +
+                " ORDER BY " + COL_END + " DESC", new String[]{String.valueOf(trackerId)});
+        return readLogs(cursor);
+    }
+
+    /**
+     * Keyset page: up to {@code limit} of the tracker's rows strictly older than (endTs, id),
+     * newest first. Pass Long.MAX_VALUE for both to get the first page.
+     */
+    public List<RelapseLog> getRelapsesOlderThan(long trackerId, long endTs, long id, int limit) {
+        checkNotMainThread();
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery(
+                "SELECT * FROM " + TABLE_RELAPSE +
+                        " WHERE " + COL_TRACKER_ID + " = ? AND " + COL_END + " <= ? AND (" + COL_END + " < ? OR id < ?)" +
+                        " ORDER BY " + COL_END + " DESC, id DESC LIMIT " + limit,
+                new String[]{String.valueOf(trackerId), String.valueOf(endTs), String.valueOf(endTs), String.valueOf(id)});
+        return readLogs(cursor);
+    }
+
+    /**
+     * Keyset page: up to {@code limit} of the tracker's rows strictly newer than (endTs, id),
+     * still returned newest first.
+     */
+    public List<RelapseLog> getRelapsesNewerThan(long trackerId, long endTs, long id, int limit) {
+        checkNotMainThread();
+        SQLiteDatabase db = this.getReadableDatabase();
+        // Walk the index forwards from the key, then flip so callers always see newest first
+        Cursor cursor = db.rawQuery(
+                "SELECT * FROM " + TABLE_RELAPSE +
+                        " WHERE " + COL_TRACKER_ID + " = ? AND " + COL_END + " >= ? AND (" + COL_END + " > ? OR id > ?)" +
+                        " ORDER BY " + COL_END + " ASC, id ASC LIMIT " + limit,
+                new String[]{String.valueOf(trackerId), String.valueOf(endTs), String.valueOf(endTs), String.valueOf(id)});
+        List<RelapseLog> list = readLogs(cursor);
+        Collections.reverse(list);
+        return list;
+    }
+
+    /**
+     * Reset number of the row keyed (endTs, id): how many of the tracker's rows sort at or
+     * before it in (end, id) order. A range count on idx_relapse_tracker_end, no table rows are read.
+     */
+    public int countUpTo(long trackerId, long endTs, long id) {
+        checkNotMainThread();
+        return countBetween(getReadableDatabase(), trackerId, Long.MIN_VALUE, Long.MIN_VALUE, endTs, id);
+    }
+
+    // Tracker's rows keyed after (fromEnd, fromId) and at or before (toEnd, toId), in (end, id) order
+    private static int countBetween(SQLiteDatabase db, long trackerId, long fromEnd, long fromId, long toEnd, long toId) {
+        return (int) DatabaseUtils.longForQuery(db,
+                "SELECT COUNT(*) FROM " + TABLE_RELAPSE +
+                        " WHERE " + COL_TRACKER_ID + " = ?" +
+                        " AND " + COL_END + " >= ? AND (" + COL_END + " > ? OR id > ?)" +
+                        " AND " + COL_END + " <= ? AND (" + COL_END + " < ? OR id <= ?)",
+                new String[]{String.valueOf(trackerId),
+                        String.valueOf(fromEnd), String.valueOf(fromEnd), String.valueOf(fromId),
+                        String.valueOf(toEnd), String.valueOf(toEnd), String.valueOf(toId)});
+    }
+
+    /**
+     * Every history row of the tracker, oldest first, in {@link #HISTORY_COLUMNS} order.
+     * The caller walks and closes the cursor, rows are never materialized as a list.
+     */
+    public Cursor queryHistoryChronological(long trackerId) {
+        checkNotMainThread();
+        return getReadableDatabase().query(TABLE_RELAPSE, HISTORY_COLUMNS,
+                COL_TRACKER_ID + " = ?", new String[]{String.valueOf(trackerId)}, null, null, COL_END + " ASC, id ASC");
+    }
+
+    /**
+     * Analytics over the tracker's whole history in one cursor pass. Only end and duration
+     * are read, in end-index order.
+     */
+    public RelapseAnalytics getAnalytics(long trackerId) {
+        checkNotMainThread();
+        Cursor cursor = getReadableDatabase().query(TABLE_RELAPSE,
+                new String[]{COL_END, COL_DURATION},
+                COL_TRACKER_ID + " = ?", new String[]{String.valueOf(trackerId)}, null, null, COL_END + " ASC, id ASC");
+        try {
+            return RelapseAnalytics.fromCursor(cursor, TimeZone.getDefault());
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Full-text search over one tracker's reasons and next steps. Every word of {@code query}
+     * is a prefix term and all of them must match. Results are ranked best first.
+     * <p>
+     * Two passes: the first reads docid and matchinfo for the newest
+     * {@code limit * SEARCH_CANDIDATES_PER_HIT} matches only, FTS4 walks docids newest first
+     * and stops there, and keeps the top {@code limit} of those by score. The second fetches
+     * rows and snippets for just those. The work is bounded by the limit, not the match count,
+     * at the price of never ranking a match older than the candidate window.
+     */
+    public List<RelapseSearchHit> search(long trackerId, String query, int limit) {
+        checkNotMainThread();
+        String match = buildMatchQuery(query);
+        if (match == null || limit <= 0) return Collections.emptyList();
+        SQLiteDatabase db = getReadableDatabase();
+
+        // Pass 1: score the newest candidates, min-heap keeps the best `limit`. matchinfo is
+        // only computed for rows the LIMIT lets through; the tracker is a rowid lookup per match
+        String tracker = String.valueOf(trackerId);
+        PriorityQueue<double[]> top = new PriorityQueue<>(limit + 1, (a, b) -> Double.compare(a[1], b[1]));
+        Cursor ranked = db.rawQuery("SELECT " + TABLE_FTS + ".docid, matchinfo(" + TABLE_FTS + ", 'pcnx') FROM " + TABLE_FTS +
+                " JOIN " + TABLE_RELAPSE + " r ON r.id = " + TABLE_FTS + ".docid" +
+                " WHERE " + TABLE_FTS + " MATCH ? AND r." + COL_TRACKER_ID + " = ?" +
+                " ORDER BY " + TABLE_FTS + ".docid DESC LIMIT " + (long) limit * SEARCH_CANDIDATES_PER_HIT,
+                new String[]{match, tracker});
+        try {
+            while (ranked.moveToNext()) {
+                double[] scored = scoreMatch(ranked.getBlob(1));
+                scored[0] = ranked.getLong(0);
+                top.add(scored);
+                if (top.size() > limit) top.poll();
+            }
+        } finally {
+            ranked.close();
+        }
+        if (top.isEmpty()) return Collections.emptyList();
+
+        // Pass 2: rows and snippets for the winners only
+        Map<Long, double[]> byId = new HashMap<>();
+        StringBuilder ids = new StringBuilder();
+        for (double[] scored : top) {
+            long id = (long) scored[0];
+            byId.put(id, scored);
+            if (ids.length() > 0) ids.append(',');
+            ids.append(id);
+        }
+        String snippetArgs = "'**', '**', '\u2026', ";
+        Cursor cursor = db.rawQuery("SELECT r.id, r." + COL_START + ", r." + COL_END + ", r." + COL_DURATION + ", " +
+                "r." + COL_REASON + ", r." + COL_STEPS + ", " +
+                "snippet(" + TABLE_FTS + ", " + snippetArgs + "0, " + SNIPPET_TOKENS + "), " +
+                "snippet(" + TABLE_FTS + ", " + snippetArgs + "1, " + SNIPPET_TOKENS + ") " +
+                "FROM " + TABLE_FTS + " JOIN " + TABLE_RELAPSE + " r ON r.id = " + TABLE_FTS + ".docid " +
+                "WHERE " + TABLE_FTS + " MATCH ? AND " + TABLE_FTS + ".docid IN (" + ids + ") " +
+                "ORDER BY r." + COL_END + " DESC, r.id DESC", new String[]{match});
+        List<RelapseSearchHit> hits = new ArrayList<>(top.size());
+        // Newest hit first, so each reset number is the total minus the rows newer than it,
+        // counted from the previous hit: one index walk from the head down to the oldest hit,
+        // which the candidate window keeps short
+        int newer = 0;
+        int total = getRelapseCount(trackerId);
+        long previousEnd = Long.MAX_VALUE;
+        long previousId = Long.MAX_VALUE;
+        try {
+            while (cursor.moveToNext()) {
+                RelapseLog log = new RelapseLog(cursor.getLong(1), cursor.getLong(2), cursor.getLong(3),
+                        cursor.getString(4), cursor.getString(5));
+                log.id = cursor.getLong(0);
+                newer += countBetween(db, trackerId, log.endTime, log.id, previousEnd, previousId);
+                int resetNumber = total - newer;
+                previousEnd = log.endTime;
+                previousId = log.id;
+                double[] scored = byId.get(log.id);
+                int columnMask = (int) scored[2];
+                // snippet() of a column without a match is just its first few words, show it whole instead
+                hits.add(new RelapseSearchHit(log,
+                        (columnMask & 1) != 0 ? cursor.getString(6) : log.reason,
+                        (columnMask & 2) != 0 ? cursor.getString(7) : log.nextSteps,
+                        resetNumber, scored[1]));
+            }
+        } finally {
+            cursor.close();
+        }
+        // Best first, newer wins a tie
+        Collections.sort(hits, (a, b) -> a.score != b.score
+                ? Double.compare(b.score, a.score)
+                : Long.compare(b.log.endTime, a.log.endTime));
+        return hits;
+    }
+
+    /**
+     * Turns free text into an FTS4 query: each word becomes a prefix term, everything that
+     * could be FTS syntax (quotes, operators, column filters) is dropped.
+     *
+     * @return null if there is nothing to search for
+     */
+    static String buildMatchQuery(String query) {
+        if (query == null) return null;
+        StringBuilder match = new StringBuilder();
+        int i = 0;
+        int len = query.length();
+        while (i < len) {
+            while (i < len && !Character.isLetterOrDigit(query.charAt(i))) i++;
+            int start = i;
+            while (i < len && Character.isLetterOrDigit(query.charAt(i))) i++;
+            if (i > start) {
+                if (match.length() > 0) match.append(' ');
+                // Lower case, operators (AND, OR, NOT, NEAR) are only syntax in upper case
+                match.append(query.substring(start, i).toLowerCase(Locale.ROOT)).append('*');
+            }
+        }
+        return match.length() == 0 ? null : match.toString();
+    }
+
+    /**
+     * Ranks one row from its matchinfo 'pcnx' blob: for every phrase and column, term
+     * frequency in the row times the inverse document frequency, weighted per column.
+     *
+     * @return {0 (docid slot), score, bit mask of the columns that matched}
+     */
+    private static double[] scoreMatch(byte[] matchinfo) {
+        IntBuffer info = ByteBuffer.wrap(matchinfo).order(ByteOrder.nativeOrder()).asIntBuffer();
+        int phrases = info.get(0);
+        int columns = info.get(1);
+        int totalDocs = info.get(2);
+        double score = 0;
+        int columnMask = 0;
+        for (int p = 0; p < phrases; p++) {
+            for (int c = 0; c < columns; c++) {
+                int base = 3 + 3 * (p * columns + c);
+                int hitsInRow = info.get(base);
+                if (hitsInRow == 0) continue;
+                int docsWithHits = info.get(base + 2);
+                double idf = Math.log(1.0 + (double) totalDocs / Math.max(1, docsWithHits));
+                score += FTS_COLUMN_WEIGHTS[c] * hitsInRow * idf;
+                columnMask |= 1 << c;
+            }
+        }
+        return new double[]{0, score, columnMask};
+    }
+
+    /**
+     * Writes a transactionally consistent copy of the whole database to {@code target}.
+     * API 30+ uses VACUUM INTO (compact, read-snapshot). Older SQLite lacks it, so the WAL
+     * is checkpointed and the main file is copied while a transaction blocks writers.
+     */
+    public void snapshotTo(File target) throws IOException {
+        checkNotMainThread();
+        if (target.exists() && !target.delete()) {
+            throw new IOException("Could not replace " + target);
+        }
+        SQLiteDatabase db = getWritableDatabase();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            db.execSQL("VACUUM INTO ?", new Object[]{target.getAbsolutePath()});
+            return;
+        }
 
+        // TRUNCATE folds every committed frame into the main file and empties the WAL
+        Cursor checkpoint = db.rawQuery("PRAGMA wal_checkpoint(TRUNCATE)", null);
+        checkpoint.moveToFirst();
+        checkpoint.close();
+
+        db.beginTransaction();
+        try (FileChannel in = new FileInputStream(db.getPath()).getChannel();
+             FileChannel out = new FileOutputStream(target).getChannel()) {
+            long size = in.size();
+            long copied = 0;
+            while (copied < size) {
+                copied += in.transferTo(copied, size - copied, out);
+            }
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public synchronized int getRelapseCount(long trackerId) {
+        checkNotMainThread();
+        if (countStatement == null) {
+            countStatement = getReadableDatabase().compileStatement(
+                    "SELECT " + COL_RESET_COUNT + " FROM " + TABLE_STATS + " WHERE id = ?");
+        }
+        countStatement.bindLong(1, trackerId);
+        return (int) countStatement.simpleQueryForLong();
+    }
+
+    // Reads every row of the cursor into RelapseLog objects and closes it
+    private static List<RelapseLog> readLogs(Cursor cursor) {
+        List<RelapseLog> list = new ArrayList<>(cursor.getCount());
         if (cursor.moveToFirst()) {
+            int idIdx = cursor.getColumnIndexOrThrow("id");
+            int startIdx = cursor.getColumnIndexOrThrow(COL_START);
+            int endIdx = cursor.getColumnIndexOrThrow(COL_END);
+            int durationIdx = cursor.getColumnIndexOrThrow(COL_DURATION);
+            int reasonIdx = cursor.getColumnIndexOrThrow(COL_REASON);
+            int stepsIdx = cursor.getColumnIndexOrThrow(COL_STEPS);
             do {
                 RelapseLog log = new RelapseLog(
-                        cursor.getLong(cursor.getColumnIndexOrThrow(COL_START)),
-                        cursor.getLong(cursor.getColumnIndexOrThrow(COL_END)),
-                        cursor.getLong(cursor.getColumnIndexOrThrow(COL_DURATION)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(COL_REASON)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(COL_STEPS))
+                        cursor.getLong(startIdx),
+                        cursor.getLong(endIdx),
+                        cursor.getLong(durationIdx),
+                        cursor.getString(reasonIdx),
+                        cursor.getString(stepsIdx)
                 );
-                log.id = cursor.getLong(cursor.getColumnIndexOrThrow("id"));
+                log.id = cursor.getLong(idIdx);
                 list.add(log);
             } while (cursor.moveToNext());
         }
         cursor.close();
-        db.close();
         return list;
     }
 
-    public long getBestStreakDuration() {
-        SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.rawQuery("SELECT MAX(" + COL_DURATION + ") FROM " + TABLE_RELAPSE, null);
-        long max = 0;
-        if (cursor.moveToFirst()) {
-            max = cursor.getLong(0);
+    /**
+     * Longest finished streak of the tracker, 0 without history. One seek to the end of the
+     * tracker's range of idx_relapse_tracker_duration.
+     */
+    public synchronized long getBestStreakDuration(long trackerId) {
+        checkNotMainThread();
+        if (bestStreakStatement == null) {
+            bestStreakStatement = getReadableDatabase().compileStatement(
+                    "SELECT IFNULL(MAX(" + COL_DURATION + "), 0) FROM " + TABLE_RELAPSE +
+                            " WHERE " + COL_TRACKER_ID + " = ?");
         }
-        cursor.close();
-        db.close();
-        return max;
+        bestStreakStatement.bindLong(1, trackerId);
+        return bestStreakStatement.simpleQueryForLong();
     }
 
-    public boolean hasRecords() {
-        SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.rawQuery("SELECT 1 FROM " + TABLE_RELAPSE + " LIMIT 1", null);
-        boolean hasRecords = cursor.getCount() > 0;
-        cursor.close();
-        db.close();
-        return hasRecords;
+    // --- Trackers ---
+
+    /**
+     * Creates a tracker with no history and no running journey, along with its stats row.
+     *
+     * @return the new tracker's id
+     */
+    public synchronized long addTracker(String name) {
+        checkNotMainThread();
+        SQLiteDatabase db = getWritableDatabase();
+        long id;
+        db.beginTransaction();
+        try {
+            SQLiteStatement insert = db.compileStatement("INSERT INTO " + TABLE_TRACKERS +
+                    " (" + COL_TRACKER_NAME + ", " + COL_TRACKER_CREATED + ") VALUES (?, ?)");
+            insert.bindString(1, name);
+            insert.bindLong(2, System.currentTimeMillis());
+            id = insert.executeInsert();
+            insert.close();
+            db.execSQL("INSERT INTO " + TABLE_STATS + " (id) VALUES (?)", new Object[]{id});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return id;
+    }
+
+    /**
+     * Every tracker, oldest first.
+     */
+    public List<Tracker> getTrackers() {
+        checkNotMainThread();
+        Cursor cursor = getReadableDatabase().query(TABLE_TRACKERS, TRACKER_COLUMNS,
+                null, null, null, null, "id ASC");
+        try {
+            List<Tracker> trackers = new ArrayList<>(cursor.getCount());
+            while (cursor.moveToNext()) {
+                trackers.add(readTracker(cursor));
+            }
+            return trackers;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * One tracker by id, or null. A rowid lookup; this is the whole of journey recovery at startup.
+     */
+    public Tracker getTracker(long trackerId) {
+        checkNotMainThread();
+        Cursor cursor = getReadableDatabase().query(TABLE_TRACKERS, TRACKER_COLUMNS,
+                "id = ?", new String[]{String.valueOf(trackerId)}, null, null, null);
+        try {
+            return cursor.moveToFirst() ? readTracker(cursor) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Starts (or restarts) a tracker's journey without recording a reset.
+     */
+    public synchronized void startJourney(long trackerId, long startTime) {
+        checkNotMainThread();
+        SQLiteDatabase db = getWritableDatabase();
+        compileInsertStatements(db);
+        restartStatement.bindLong(1, startTime);
+        restartStatement.bindLong(2, trackerId);
+        restartStatement.executeUpdateDelete();
+    }
+
+    private static Tracker readTracker(Cursor cursor) {
+        return new Tracker(cursor.getLong(0), cursor.getString(1), cursor.getLong(2),
+                cursor.getLong(3), cursor.getInt(4) != 0);
+    }
+
+    public synchronized boolean hasRecords(long trackerId) {
+        checkNotMainThread();
+        if (hasRecordsStatement == null) {
+            hasRecordsStatement = getReadableDatabase().compileStatement(
+                    "SELECT " + COL_RESET_COUNT + " > 0 FROM " + TABLE_STATS + " WHERE id = ?");
+        }
+        hasRecordsStatement.bindLong(1, trackerId);
+        return hasRecordsStatement.simpleQueryForLong() != 0;
+    }
+
+    private static void bindNullableString(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
     }
 
-}
\ No newline at end of file
+}
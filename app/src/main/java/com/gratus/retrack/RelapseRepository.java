@@ -0,0 +1,344 @@
+package com.gratus.retrack;
+
+import android.content.Context;
+import android.database.SQLException;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Async front door to {@link RelapseDbHelper}.
+ * Every query runs on one background thread (so writes stay ordered) and the
+ * result is handed back on the main thread. Aggregates and the newest page are
+ * served from {@link RelapseCache} when possible.
+ * <p>
+ * History reads and writes go to the selected tracker, which {@link JourneyStore} owns and
+ * sets here. Each call takes the tracker id when it is made, so a query still queued when the
+ * user switches trackers reads or writes the tracker it was asked about.
+ */
+public class RelapseRepository {
+
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    /**
+     * Turns a raw page into whatever the caller displays. Runs on the worker thread,
+     * so expensive formatting belongs here rather than in the Callback.
+     */
+    public interface PageMapper<R> {
+        R map(List<RelapseLog> page, int totalCount);
+    }
+
+    /**
+     * Same idea as PageMapper, for search results.
+     */
+    public interface HitMapper<R> {
+        R map(List<RelapseSearchHit> hits);
+    }
+
+    private static final String TAG = "RelapseRepository";
+
+    private static volatile RelapseRepository instance;
+
+    private final RelapseDbHelper dbHelper;
+    private final RelapseCache cache = new RelapseCache();
+    private final ExecutorService executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Notified on the main thread after every write and tracker switch. Main thread only.
+    private final List<Runnable> changeListeners = new ArrayList<>();
+
+    private volatile long trackerId = RelapseDbHelper.DEFAULT_TRACKER_ID;
+
+    public static RelapseRepository getInstance(Context context) {
+        if (instance == null) {
+            synchronized (RelapseRepository.class) {
+                if (instance == null) {
+                    instance = new RelapseRepository(RelapseDbHelper.getInstance(context));
+                }
+            }
+        }
+        return instance;
+    }
+
+    private RelapseRepository(RelapseDbHelper dbHelper) {
+        this.dbHelper = dbHelper;
+        // Single worker, idle thread is released after 30s
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> new Thread(r, "retrack-db"));
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    // --- Trackers ---
+
+    /**
+     * Points reads and writes made from now on at {@code trackerId} and drops the cache.
+     * JourneyStore calls this from its loader before anything reads, and on every switch.
+     */
+    void setTrackerId(long trackerId) {
+        this.trackerId = trackerId;
+        cache.setTracker(trackerId);
+    }
+
+    /**
+     * Switches to another tracker and tells the change listeners, whose next reads see it.
+     * Main thread only, see {@link JourneyStore#selectTracker}.
+     */
+    void selectTracker(long trackerId) {
+        setTrackerId(trackerId);
+        notifyDataChanged();
+    }
+
+    public long getTrackerId() {
+        return trackerId;
+    }
+
+    public void getTrackers(Callback<List<Tracker>> callback) {
+        runQuery(dbHelper::getTrackers, callback);
+    }
+
+    public void getTracker(long trackerId, Callback<Tracker> callback) {
+        runQuery(() -> dbHelper.getTracker(trackerId), callback);
+    }
+
+    /**
+     * Creates a tracker; {@code callback} gets its id. Selecting it is up to the caller.
+     */
+    public void addTracker(String name, Callback<Long> callback) {
+        runQuery(() -> dbHelper.addTracker(name), callback);
+    }
+
+    // --- Reads ---
+
+    public void hasRecords(Callback<Boolean> callback) {
+        long trackerId = this.trackerId;
+        runQuery(() -> loadStats(trackerId).resetCount > 0, callback);
+    }
+
+    /**
+     * Longest finished streak of {@code trackerId}, selected or not. An index seek, not cached.
+     */
+    public void getBestStreakDuration(long trackerId, Callback<Long> callback) {
+        runQuery(() -> dbHelper.getBestStreakDuration(trackerId), callback);
+    }
+
+    public void getAllRelapses(Callback<List<RelapseLog>> callback) {
+        long trackerId = this.trackerId;
+        runQuery(() -> dbHelper.getAllRelapses(trackerId), callback);
+    }
+
+    public void getStats(Callback<RelapseStats> callback) {
+        long trackerId = this.trackerId;
+        runQuery(() -> loadStats(trackerId), callback);
+    }
+
+    /**
+     * Histogram, percentiles, rolling average, day/hour distribution and trend.
+     * Computed once and cached until the next write.
+     */
+    public void getAnalytics(Callback<RelapseAnalytics> callback) {
+        long trackerId = this.trackerId;
+        runQuery(() -> {
+            RelapseAnalytics analytics = cache.getAnalytics(trackerId);
+            if (analytics == null) {
+                long generation = cache.getGeneration();
+                analytics = dbHelper.getAnalytics(trackerId);
+                cache.putAnalytics(trackerId, analytics, generation);
+            }
+            return analytics;
+        }, callback);
+    }
+
+    /**
+     * Heatmap cells for local epoch days [fromDay, toDay], straight from relapse_daily.
+     */
+    public void getDailyRollups(long fromDay, long toDay, Callback<RollupCells> callback) {
+        long trackerId = this.trackerId;
+        runQuery(() -> dbHelper.getDailyRollups(trackerId, fromDay, toDay), callback);
+    }
+
+    /**
+     * Heatmap cells for months [fromMonth, toMonth], see {@link com.gratus.retrack.helpers.CalendarDays}.
+     */
+    public void getMonthlyRollups(long fromMonth, long toMonth, Callback<RollupCells> callback) {
+        long trackerId = this.trackerId;
+        runQuery(() -> dbHelper.getMonthlyRollups(trackerId, fromMonth, toMonth), callback);
+    }
+
+    public void getRelapseCount(Callback<Integer> callback) {
+        long trackerId = this.trackerId;
+        runQuery(() -> loadStats(trackerId).resetCount, callback);
+    }
+
+    public <R> void getRelapsesOlderThan(long endTs, long id, int limit, PageMapper<R> mapper, Callback<R> callback) {
+        long trackerId = this.trackerId;
+        runQuery(() -> {
+            List<RelapseLog> page;
+            if (endTs == Long.MAX_VALUE && id == Long.MAX_VALUE) {
+                // The newest page is what every sheet open asks for first
+                page = cache.getHead(trackerId, limit);
+                if (page == null) {
+                    long generation = cache.getGeneration();
+                    page = dbHelper.getRelapsesOlderThan(trackerId, endTs, id, limit);
+                    cache.putHead(trackerId, page, limit, generation);
+                }
+            } else {
+                page = dbHelper.getRelapsesOlderThan(trackerId, endTs, id, limit);
+            }
+            return mapper.map(page, loadStats(trackerId).resetCount);
+        }, callback);
+    }
+
+    public <R> void getRelapsesNewerThan(long endTs, long id, int limit, PageMapper<R> mapper, Callback<R> callback) {
+        long trackerId = this.trackerId;
+        runQuery(() -> mapper.map(dbHelper.getRelapsesNewerThan(trackerId, endTs, id, limit),
+                loadStats(trackerId).resetCount), callback);
+    }
+
+    /**
+     * Keyset page starting at (endTs, id) itself and walking older. Used to rebuild a
+     * window in place after a write that renumbered it, so the mapper is handed the
+     * reset number of the first row instead of the total count.
+     */
+    public <R> void getRelapsesFrom(long endTs, long id, int limit, PageMapper<R> mapper, Callback<R> callback) {
+        long trackerId = this.trackerId;
+        runQuery(() -> {
+            // Strictly older than (endTs, id + 1) is at-or-older than (endTs, id)
+            List<RelapseLog> page = dbHelper.getRelapsesOlderThan(trackerId, endTs, id + 1, limit);
+            int firstResetNumber = page.isEmpty() ? 0
+                    : dbHelper.countUpTo(trackerId, page.get(0).endTime, page.get(0).id);
+            return mapper.map(page, firstResetNumber);
+        }, callback);
+    }
+
+    /**
+     * Full-text search over reasons and next steps, best match first. Not cached,
+     * every keystroke is a new query.
+     */
+    public <R> void search(String query, int limit, HitMapper<R> mapper, Callback<R> callback) {
+        long trackerId = this.trackerId;
+        runQuery(() -> mapper.map(dbHelper.search(trackerId, query, limit)), callback);
+    }
+
+    public long getCacheHits() {
+        return cache.getHits();
+    }
+
+    public long getCacheMisses() {
+        return cache.getMisses();
+    }
+
+    // Worker thread only
+    private RelapseStats loadStats(long trackerId) {
+        RelapseStats stats = cache.getStats(trackerId);
+        if (stats == null) {
+            long generation = cache.getGeneration();
+            stats = dbHelper.getStats(trackerId);
+            cache.putStats(trackerId, stats, generation);
+        }
+        return stats;
+    }
+
+    // --- Change notification ---
+
+    public void addChangeListener(Runnable listener) {
+        if (!changeListeners.contains(listener)) {
+            changeListeners.add(listener);
+        }
+    }
+
+    public void removeChangeListener(Runnable listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * For code that writes through RelapseDbHelper directly (e.g. the importer):
+     * drops the cache and tells listeners. Main thread only.
+     */
+    public void notifyExternalWrite() {
+        cache.invalidate();
+        notifyDataChanged();
+    }
+
+    private void notifyDataChanged() {
+        // Copy, a listener may unregister itself while being notified
+        for (Runnable listener : new ArrayList<>(changeListeners)) {
+            listener.run();
+        }
+    }
+
+    // --- Writes ---
+
+    /**
+     * Records a reset on the selected tracker. The history row and the new streak start (at
+     * {@code end}) commit together, see {@link RelapseDbHelper#addRelapse}. {@code onComplete}
+     * runs on the main thread once they have, and never if the write fails.
+     */
+    public void addRelapse(long start, long end, String reason, String steps, Runnable onComplete) {
+        long trackerId = this.trackerId;
+        runQuery(() -> {
+            RelapseLog log = new RelapseLog(start, end, end - start, reason, steps);
+            log.id = dbHelper.addRelapse(trackerId, start, end, reason, steps);
+            cache.onInsert(trackerId, log);
+            return null;
+        }, ignored -> {
+            notifyDataChanged();
+            if (onComplete != null) onComplete.run();
+        });
+    }
+
+    /**
+     * Persists the start of the selected tracker's journey. Queued on the same worker as
+     * resets, so the two always land in the order they were made.
+     */
+    public void startJourney(long startTime) {
+        long trackerId = this.trackerId;
+        runQuery(() -> {
+            dbHelper.startJourney(trackerId, startTime);
+            return null;
+        }, null);
+    }
+
+    /**
+     * Re-buckets the heatmap rollups after the device zone changed, listeners are told if
+     * anything moved. Main thread only.
+     */
+    public void onTimeZoneChanged() {
+        runQuery(dbHelper::syncRollupZone, rebuilt -> {
+            if (rebuilt) notifyDataChanged();
+        });
+    }
+
+    private <T> void runQuery(Callable<T> query, Callback<T> callback) {
+        executor.execute(() -> {
+            T result;
+            try {
+                result = query.call();
+            } catch (SQLException e) {
+                // Disk full, locked or corrupt file: not a bug, so the app stays up, the callback is
+                // skipped and the UI keeps showing what it had
+                Log.e(TAG, "Database operation failed", e);
+                return;
+            } catch (Exception e) {
+                // Anything else is a bug. Surface it on the main thread so it is not swallowed by the worker
+                mainHandler.post(() -> {
+                    throw new RuntimeException("Database operation failed", e);
+                });
+                return;
+            }
+            if (callback != null) {
+                mainHandler.post(() -> callback.onResult(result));
+            }
+        });
+    }
+}
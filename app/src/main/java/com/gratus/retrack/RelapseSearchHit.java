@@ -0,0 +1,21 @@
+package com.gratus.retrack;
+
+/**
+ * One full-text match. Snippets mark the matched terms with ** so they render
+ * bold through TextFormatUtils; a column without a match carries its full text.
+ */
+public class RelapseSearchHit {
+    public final RelapseLog log;
+    public final String reasonSnippet;
+    public final String stepsSnippet;
+    public final int resetNumber; // Same numbering as the history list
+    public final double score;
+
+    RelapseSearchHit(RelapseLog log, String reasonSnippet, String stepsSnippet, int resetNumber, double score) {
+        this.log = log;
+        this.reasonSnippet = reasonSnippet;
+        this.stepsSnippet = stepsSnippet;
+        this.resetNumber = resetNumber;
+        this.score = score;
+    }
+}
@@ -0,0 +1,16 @@
+package com.gratus.retrack;
+
+/**
+ * Snapshot of the relapse_stats row.
+ */
+public class RelapseStats {
+    public int resetCount;
+    public long totalDuration;
+    public long bestDuration;
+    public long medianDuration;
+    public long lastEndTime;
+
+    public long getAverageDuration() {
+        return resetCount == 0 ? 0 : totalDuration / resetCount;
+    }
+}
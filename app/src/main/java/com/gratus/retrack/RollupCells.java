@@ -0,0 +1,21 @@
+package com.gratus.retrack;
+
+/**
+ * A contiguous run of relapse_daily or relapse_monthly rows, one cell per day or month.
+ * Cell i is key firstKey + i; days and months with no row are zero.
+ */
+public class RollupCells {
+    public final long firstKey;
+    public final long[] cleanMs;
+    public final int[] resets;
+
+    RollupCells(long firstKey, int size) {
+        this.firstKey = firstKey;
+        this.cleanMs = new long[size];
+        this.resets = new int[size];
+    }
+
+    public int size() {
+        return resets.length;
+    }
+}
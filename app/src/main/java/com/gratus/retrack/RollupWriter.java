@@ -0,0 +1,107 @@
+package com.gratus.retrack;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.gratus.retrack.helpers.CalendarDays;
+
+import java.util.TimeZone;
+
+/**
+ * Folds streaks into relapse_daily and relapse_monthly. A streak adds its time to every
+ * local day (and month) it covers on its tracker, and one reset to the day it ended on. The caller owns
+ * the transaction. Counts only ever go up, so anything that removes or rewrites history
+ * rebuilds the rollups instead (see {@link RelapseDbHelper#rebuildRollups()}).
+ */
+class RollupWriter implements CalendarDays.DaySink {
+
+    private final SQLiteStatement dayInit;
+    private final SQLiteStatement dayAdd;
+    private final SQLiteStatement dayResets;
+    private final SQLiteStatement monthInit;
+    private final SQLiteStatement monthAdd;
+
+    // Pieces of the current streak are summed per month before touching relapse_monthly
+    private static final long NO_MONTH = Long.MIN_VALUE;
+    private long pendingMonth = NO_MONTH;
+    private long pendingMonthMs = 0;
+
+    private long trackerId; // Of the streak being folded
+
+    RollupWriter(SQLiteDatabase db) {
+        dayInit = db.compileStatement("INSERT OR IGNORE INTO " + RelapseDbHelper.TABLE_DAILY +
+                " (tracker_id, day) VALUES (?, ?)");
+        dayAdd = db.compileStatement("UPDATE " + RelapseDbHelper.TABLE_DAILY +
+                " SET clean_ms = clean_ms + ?, resets = resets + ? WHERE tracker_id = ? AND day = ?");
+        dayResets = db.compileStatement("SELECT resets FROM " + RelapseDbHelper.TABLE_DAILY +
+                " WHERE tracker_id = ? AND day = ?");
+        monthInit = db.compileStatement("INSERT OR IGNORE INTO " + RelapseDbHelper.TABLE_MONTHLY +
+                " (tracker_id, month) VALUES (?, ?)");
+        monthAdd = db.compileStatement("UPDATE " + RelapseDbHelper.TABLE_MONTHLY +
+                " SET clean_ms = clean_ms + ?, resets = resets + ?, reset_days = reset_days + ? WHERE tracker_id = ? AND month = ?");
+    }
+
+    void fold(long trackerId, long start, long end, TimeZone zone) {
+        this.trackerId = trackerId;
+        long resetDay = CalendarDays.splitByDay(start, end, zone, this);
+        flushMonth();
+
+        addDay(resetDay, 0, 1);
+        dayResets.bindLong(1, trackerId);
+        dayResets.bindLong(2, resetDay);
+        // First reset of that day makes it a reset day of the month
+        boolean firstOfDay = dayResets.simpleQueryForLong() == 1;
+        addMonth(CalendarDays.monthOf(resetDay), 0, 1, firstOfDay ? 1 : 0);
+    }
+
+    @Override
+    public void accept(long epochDay, long ms) {
+        if (ms == 0) return;
+        addDay(epochDay, ms, 0);
+        long month = CalendarDays.monthOf(epochDay);
+        if (month != pendingMonth) {
+            flushMonth();
+            pendingMonth = month;
+        }
+        pendingMonthMs += ms;
+    }
+
+    void close() {
+        dayInit.close();
+        dayAdd.close();
+        dayResets.close();
+        monthInit.close();
+        monthAdd.close();
+    }
+
+    private void flushMonth() {
+        if (pendingMonth != NO_MONTH && pendingMonthMs > 0) {
+            addMonth(pendingMonth, pendingMonthMs, 0, 0);
+        }
+        pendingMonth = NO_MONTH;
+        pendingMonthMs = 0;
+    }
+
+    private void addDay(long day, long cleanMs, int resets) {
+        dayInit.bindLong(1, trackerId);
+        dayInit.bindLong(2, day);
+        dayInit.executeInsert();
+        dayAdd.bindLong(1, cleanMs);
+        dayAdd.bindLong(2, resets);
+        dayAdd.bindLong(3, trackerId);
+        dayAdd.bindLong(4, day);
+        dayAdd.executeUpdateDelete();
+    }
+
+    private void addMonth(long month, long cleanMs, int resets, int resetDays) {
+        monthInit.bindLong(1, trackerId);
+        monthInit.bindLong(2, month);
+        monthInit.executeInsert();
+        monthAdd.bindLong(1, cleanMs);
+        monthAdd.bindLong(2, resets);
+        monthAdd.bindLong(3, resetDays);
+        monthAdd.bindLong(4, trackerId);
+        monthAdd.bindLong(5, month);
+        monthAdd.executeUpdateDelete();
+    }
+}
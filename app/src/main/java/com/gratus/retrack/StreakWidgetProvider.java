@@ -0,0 +1,130 @@
+package com.gratus.retrack;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.appwidget.AppWidgetManager;
+import android.appwidget.AppWidgetProvider;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.os.SystemClock;
+import android.widget.RemoteViews;
+
+import com.gratus.retrack.helpers.StreakClock;
+
+/**
+ * Home-screen streak widget. Nothing here ticks: the days text is pushed once per streak day,
+ * the Chronometer counts the hours within the day by itself, and the best streak comes from
+ * the repository's cached stats. A non-wakeup alarm at the next day boundary is the only
+ * scheduled work, plus a push whenever the journey state changes (see ReTrackApp).
+ */
+public class StreakWidgetProvider extends AppWidgetProvider {
+
+    private static final String ACTION_DAY_BOUNDARY = "com.gratus.retrack.action.WIDGET_DAY_BOUNDARY";
+
+    // The boundary alarm may fire up to this late, so it can batch with other alarms
+    private static final long ALARM_WINDOW_MS = 60_000;
+
+    // Last content pushed, a trigger that would render the same thing is skipped. Main thread only.
+    private static long shownDayStart = -1;
+    private static long shownBestDays = -1;
+    private static boolean shownRunning;
+
+    @Override
+    public void onUpdate(Context context, AppWidgetManager manager, int[] appWidgetIds) {
+        // New widget or host restart, the host has nothing to show yet
+        shownDayStart = -1;
+        PendingResult pending = goAsync();
+        render(context, pending::finish);
+    }
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        super.onReceive(context, intent);
+        String action = intent.getAction();
+        if (ACTION_DAY_BOUNDARY.equals(action) || Intent.ACTION_TIME_CHANGED.equals(action)) {
+            PendingResult pending = goAsync();
+            render(context, pending::finish);
+        }
+    }
+
+    @Override
+    public void onDisabled(Context context) {
+        // Last widget removed
+        context.getSystemService(AlarmManager.class).cancel(dayBoundaryIntent(context));
+        shownDayStart = -1;
+    }
+
+    /**
+     * Re-renders every placed widget if what it shows has changed. Main thread only.
+     */
+    public static void updateAll(Context context) {
+        render(context, () -> { });
+    }
+
+    private static void render(Context context, Runnable onDone) {
+        Context appContext = context.getApplicationContext();
+        AppWidgetManager manager = AppWidgetManager.getInstance(appContext);
+        int[] ids = manager.getAppWidgetIds(new ComponentName(appContext, StreakWidgetProvider.class));
+        if (ids.length == 0) {
+            onDone.run();
+            return;
+        }
+        JourneyStore store = JourneyStore.getInstance(appContext);
+        // Once the tracker row is in, then stats: a cache hit in a warm process, one
+        // relapse_stats row read otherwise
+        store.whenJourneyLoaded(() -> RelapseRepository.getInstance(appContext).getStats(stats -> {
+            long now = System.currentTimeMillis();
+            boolean running = store.isRunning();
+            long startTime = store.getStartTime();
+            long current = running ? Math.max(0, now - startTime) : 0;
+            long bestDays = Math.max(stats.bestDuration, current) / StreakClock.DAY_MS;
+            long dayStart = running ? StreakClock.nextDayBoundary(startTime, now) - StreakClock.DAY_MS : 0;
+
+            if (dayStart != shownDayStart || bestDays != shownBestDays || running != shownRunning) {
+                shownDayStart = dayStart;
+                shownBestDays = bestDays;
+                shownRunning = running;
+                manager.updateAppWidget(ids, buildViews(appContext, running, startTime, bestDays, now));
+            }
+            scheduleDayBoundary(appContext, running, startTime, now);
+            onDone.run();
+        }));
+    }
+
+    private static RemoteViews buildViews(Context context, boolean running, long startTime, long bestDays, long now) {
+        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_streak);
+        long days = running ? StreakClock.daysAt(startTime, now) : 0;
+        views.setTextViewText(R.id.widget_days, days + (days == 1 ? " day" : " days"));
+
+        // Chronometer bases are in elapsedRealtime, back-date it by the time into the current day
+        long base = SystemClock.elapsedRealtime() - (running ? StreakClock.intoDayAt(startTime, now) : 0);
+        views.setChronometer(R.id.widget_clock, base, null, running);
+
+        views.setTextViewText(R.id.widget_best,
+                "\uD83C\uDFC6 " + bestDays + " days"); // 🏆 {days} days, as on the main screen
+
+        Intent open = new Intent(context, MainActivity.class);
+        views.setOnClickPendingIntent(R.id.widget_root,
+                PendingIntent.getActivity(context, 0, open, PendingIntent.FLAG_IMMUTABLE));
+        return views;
+    }
+
+    private static void scheduleDayBoundary(Context context, boolean running, long startTime, long now) {
+        AlarmManager alarmManager = context.getSystemService(AlarmManager.class);
+        PendingIntent intent = dayBoundaryIntent(context);
+        if (!running) {
+            alarmManager.cancel(intent);
+            return;
+        }
+        // RTC, not RTC_WAKEUP: a sleeping device catches up when it wakes, nobody is looking anyway.
+        // Same PendingIntent, so this replaces any earlier boundary alarm.
+        alarmManager.setWindow(AlarmManager.RTC, StreakClock.nextDayBoundary(startTime, now), ALARM_WINDOW_MS, intent);
+    }
+
+    private static PendingIntent dayBoundaryIntent(Context context) {
+        Intent intent = new Intent(context, StreakWidgetProvider.class).setAction(ACTION_DAY_BOUNDARY);
+        return PendingIntent.getBroadcast(context, 0, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+}
@@ -0,0 +1,20 @@
+package com.gratus.retrack;
+
+/**
+ * A row of the trackers table: one habit with its own streak history and journey state.
+ */
+public class Tracker {
+    public final long id;
+    public final String name;
+    public final long createdTime;
+    public final long startTime; // Start of the current streak
+    public final boolean running;
+
+    public Tracker(long id, String name, long createdTime, long startTime, boolean running) {
+        this.id = id;
+        this.name = name;
+        this.createdTime = createdTime;
+        this.startTime = startTime;
+        this.running = running;
+    }
+}
@@ -0,0 +1,125 @@
+package com.gratus.retrack;
+
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.os.Bundle;
+import android.text.InputType;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.Window;
+import android.widget.EditText;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
+
+import com.google.android.material.bottomsheet.BottomSheetBehavior;
+import com.google.android.material.bottomsheet.BottomSheetDialogFragment;
+import com.gratus.retrack.helpers.StreakTicker;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lists the trackers with their live streak and best streak, switches the main screen to the
+ * tapped one and creates new ones.
+ */
+public class TrackersBottomSheet extends BottomSheetDialogFragment {
+
+    private JourneyStore store;
+    private RelapseRepository repository;
+    private LinearLayout listView;
+
+    @Nullable
+    @Override
+    public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
+        return inflater.inflate(R.layout.bottomsheet_trackers, container, false);
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        store = JourneyStore.getInstance(requireContext());
+        repository = RelapseRepository.getInstance(requireContext());
+        listView = view.findViewById(R.id.tracker_list);
+        view.findViewById(R.id.add_tracker).setOnClickListener(v -> showAddDialog());
+        repository.getTrackers(this::showTrackers);
+    }
+
+    @Override
+    public void onDestroyView() {
+        listView = null;
+        super.onDestroyView();
+    }
+
+    private void showTrackers(List<Tracker> trackers) {
+        if (listView == null) return; // Closed before the list arrived
+        LayoutInflater inflater = LayoutInflater.from(listView.getContext());
+        long selectedId = store.getTrackerId();
+        for (Tracker tracker : trackers) {
+            View item = inflater.inflate(R.layout.item_tracker, listView, false);
+            TextView title = item.findViewById(R.id.tracker_title);
+            TextView days = item.findViewById(R.id.tracker_days);
+            TextView clock = item.findViewById(R.id.tracker_clock);
+            TextView best = item.findViewById(R.id.tracker_best);
+
+            title.setText(tracker.id == selectedId ? "\u2713 " + tracker.name : tracker.name); // ✓ {name}
+            if (tracker.running) {
+                // Ticks on its own start's second, next to the main screen's counter
+                StreakTicker ticker = new StreakTicker(getViewLifecycleOwner(), days, clock);
+                ticker.setStartTime(tracker.startTime);
+                ticker.start();
+            } else {
+                clock.setText(R.string.tracker_not_started);
+            }
+            repository.getBestStreakDuration(tracker.id, bestMs -> {
+                long bestDays = TimeUnit.MILLISECONDS.toDays(bestMs);
+                best.setText("\uD83C\uDFC6 " + bestDays + " days"); // 🏆 {days} days
+            });
+
+            item.findViewById(R.id.tracker_card).setOnClickListener(v -> {
+                store.selectTracker(tracker.id);
+                dismiss();
+            });
+            listView.addView(item);
+        }
+    }
+
+    private void showAddDialog() {
+        EditText input = new EditText(requireContext());
+        input.setHint(R.string.tracker_add_hint);
+        input.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_FLAG_CAP_SENTENCES);
+        input.setSingleLine(true);
+        new AlertDialog.Builder(requireContext())
+                .setTitle(R.string.tracker_add_title)
+                .setView(input)
+                .setPositiveButton(R.string.tracker_add_confirm, (dialog, which) -> {
+                    String name = input.getText().toString().trim();
+                    if (name.isEmpty()) return;
+                    // The new tracker starts out not running, the main screen offers to start it
+                    repository.addTracker(name, id -> {
+                        store.selectTracker(id);
+                        if (isAdded()) dismiss();
+                    });
+                })
+                .setNegativeButton(android.R.string.cancel, null)
+                .show();
+    }
+
+    @Override
+    public void onStart() {
+        super.onStart();
+        if (getDialog() == null) return;
+        Window window = getDialog().getWindow();
+        if (window != null) window.setBackgroundDrawable(new ColorDrawable(Color.TRANSPARENT));
+        // Rounded layout background instead of the default sheet surface
+        View bottomSheet = getDialog().findViewById(com.google.android.material.R.id.design_bottom_sheet);
+        if (bottomSheet != null) {
+            bottomSheet.setBackgroundColor(Color.TRANSPARENT);
+            BottomSheetBehavior.from(bottomSheet).setState(BottomSheetBehavior.STATE_EXPANDED);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.gratus.retrack.helpers;
+
+import java.util.TimeZone;
+
+/**
+ * Local calendar days and months as plain numbers, for the heatmap rollups.
+ * A day is its local epoch day (days since 1970-01-01 in the given zone), a month is
+ * year * 12 + (month - 1), so consecutive days and months are consecutive integers.
+ * Plain Java so the bucketing can be unit tested on the host.
+ */
+public final class CalendarDays {
+
+    public static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    /**
+     * Receives one piece of a split interval: the time it spends in a local day.
+     */
+    public interface DaySink {
+        void accept(long epochDay, long ms);
+    }
+
+    private CalendarDays() {
+    }
+
+    public static long epochDay(long time, TimeZone zone) {
+        return Math.floorDiv(time + zone.getOffset(time), DAY_MS);
+    }
+
+    /**
+     * Instant of local midnight starting {@code epochDay}.
+     */
+    public static long startOfDay(long epochDay, TimeZone zone) {
+        long localMidnight = epochDay * DAY_MS;
+        // Guess with the offset at UTC midnight, then correct with the offset at the guess
+        long guess = localMidnight - zone.getOffset(localMidnight);
+        long start = localMidnight - zone.getOffset(guess);
+        if (epochDay(start, zone) < epochDay) {
+            // Midnight falls in a DST gap (clocks jump from 23:59 to 01:00), so the day
+            // starts at the jump: the offset still in force before it places it exactly
+            start = localMidnight - zone.getOffset(start);
+        } else {
+            // Midnight may repeat (clocks fall back from 01:00 to 00:00): the day starts at
+            // its first occurrence, under the offset in force a few hours earlier
+            int before = zone.getOffset(start - DAY_MS / 4);
+            long earlier = localMidnight - before;
+            if (earlier < start && zone.getOffset(earlier) == before) {
+                start = earlier;
+            }
+        }
+        return start;
+    }
+
+    /**
+     * Month index (year * 12 + month - 1) of a local epoch day, proleptic Gregorian.
+     */
+    public static long monthOf(long epochDay) {
+        // Days to civil date, H. Hinnant's algorithm with March-based years
+        long z = epochDay + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long dayOfEra = z - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        long month = mp < 10 ? mp + 3 : mp - 9; // 1..12
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 12 + month - 1;
+    }
+
+    /**
+     * Splits [start, end) at local midnights and hands each piece to {@code sink}, oldest
+     * first. The pieces add up to exactly end - start. The last piece is the day of
+     * {@code end}, with 0 ms if end falls on midnight.
+     *
+     * @return the epoch day of {@code end}
+     */
+    public static long splitByDay(long start, long end, TimeZone zone, DaySink sink) {
+        long day = epochDay(start, zone);
+        long cursor = start;
+        while (true) {
+            long next = startOfDay(day + 1, zone);
+            if (end < next) {
+                sink.accept(day, Math.max(0, end - cursor));
+                return day;
+            }
+            sink.accept(day, next - cursor);
+            cursor = next;
+            day++;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.gratus.retrack.helpers;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Environment;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.MediaStore;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.gratus.retrack.RelapseDbHelper;
+import com.gratus.retrack.RelapseRepository;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports the database to Documents/ReTrackExports in the background.
+ * A consistent snapshot is taken first (see {@link RelapseDbHelper#snapshotTo}), then
+ * streamed to the output in large chunks with progress reported on the main thread.
+ */
+public class DatabaseExporter {
+
+    public interface Listener {
+        void onProgress(long bytesWritten, long totalBytes);
+        void onComplete();
+        void onError(Exception e);
+    }
+
+    public enum TextFormat {
+        CSV("text/csv", ".csv"),
+        JSON_LINES("application/x-ndjson", ".jsonl");
+
+        final String mimeType;
+        final String extension;
+
+        TextFormat(String mimeType, String extension) {
+            this.mimeType = mimeType;
+            this.extension = extension;
+        }
+    }
+
+    public static final String EXPORT_DIR = "ReTrackExports";
+    private static final String SNAPSHOT_NAME = "export_snapshot.db";
+    private static final int CHUNK_SIZE = 256 * 1024;
+    private static final int PROGRESS_EVERY_ROWS = 1000;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "retrack-export"));
+
+    private final Context context;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public DatabaseExporter(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public void exportDatabase(String fileName, Listener listener) {
+        executor.execute(() -> {
+            File snapshot = new File(context.getCacheDir(), SNAPSHOT_NAME);
+            try {
+                // 1. Consistent copy, never the live file (WAL frames / concurrent writes)
+                RelapseDbHelper.getInstance(context).snapshotTo(snapshot);
+
+                // 2. Stream it out
+                try (ExportTarget target = openExportTarget(fileName, "application/octet-stream")) {
+                    copyWithProgress(snapshot, target.stream, listener);
+                    target.markComplete();
+                }
+                mainHandler.post(listener::onComplete);
+            } catch (Exception e) {
+                mainHandler.post(() -> listener.onError(e));
+            } finally {
+                //noinspection ResultOfMethodCallIgnored
+                snapshot.delete();
+            }
+        });
+    }
+
+    /**
+     * Streams the selected tracker's history row by row from the cursor into CSV or JSON lines,
+     * optionally gzipped. Memory use is constant whatever the row count.
+     * Progress is reported in rows.
+     */
+    public void exportHistory(String baseName, TextFormat format, boolean gzip, Listener listener) {
+        // Taken now, a switch while the export is queued does not change what it writes
+        long trackerId = RelapseRepository.getInstance(context).getTrackerId();
+        executor.execute(() -> {
+            RelapseDbHelper dbHelper = RelapseDbHelper.getInstance(context);
+            String fileName = baseName + format.extension + (gzip ? ".gz" : "");
+            String mimeType = gzip ? "application/gzip" : format.mimeType;
+
+            try {
+                try (ExportTarget target = openExportTarget(fileName, mimeType);
+                     Cursor cursor = dbHelper.queryHistoryChronological(trackerId)) {
+                    // Closes target.stream, the target tolerates a second close
+                    writeHistory(cursor, format, gzip, target.stream, dbHelper.getRelapseCount(trackerId), listener);
+                    target.markComplete();
+                }
+                // Closing the target is what publishes the file, so success is only reported after it
+                mainHandler.post(listener::onComplete);
+            } catch (Exception e) {
+                mainHandler.post(() -> listener.onError(e));
+            }
+        });
+    }
+
+    /**
+     * Writes every cursor row to {@code out} and closes it. The gzip trailer is written
+     * (and the Deflater's native memory released) on close, even when a row fails.
+     */
+    @VisibleForTesting
+    public void writeHistory(Cursor cursor, TextFormat format, boolean gzip, OutputStream out,
+                             long total, Listener listener) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                gzip ? new GZIPOutputStream(out, CHUNK_SIZE) : out, StandardCharsets.UTF_8), CHUNK_SIZE)) {
+            long rows = 0;
+            if (format == TextFormat.CSV) {
+                writeCsvRow(writer, RelapseDbHelper.HISTORY_COLUMNS);
+            }
+            String[] values = new String[RelapseDbHelper.HISTORY_COLUMNS.length];
+            while (cursor.moveToNext()) {
+                if (format == TextFormat.CSV) {
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = cursor.getString(i);
+                    }
+                    writeCsvRow(writer, values);
+                } else {
+                    writeJsonRow(writer, cursor);
+                }
+                if (++rows % PROGRESS_EVERY_ROWS == 0) {
+                    long progress = rows;
+                    mainHandler.post(() -> listener.onProgress(progress, total));
+                }
+            }
+        }
+    }
+
+    // RFC 4180: quote fields holding separators, quotes or line breaks, double inner quotes
+    private static void writeCsvRow(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) writer.write(',');
+            String value = values[i];
+            if (value == null) continue;
+            boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            if (!quote) {
+                writer.write(value);
+                continue;
+            }
+            writer.write('"');
+            for (int c = 0; c < value.length(); c++) {
+                char ch = value.charAt(c);
+                if (ch == '"') writer.write('"');
+                writer.write(ch);
+            }
+            writer.write('"');
+        }
+        writer.write("\r\n");
+    }
+
+    private static void writeJsonRow(Writer writer, Cursor cursor) throws IOException {
+        String[] columns = RelapseDbHelper.HISTORY_COLUMNS;
+        writer.write('{');
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) writer.write(',');
+            writer.write('"');
+            writer.write(columns[i]);
+            writer.write("\":");
+            if (cursor.isNull(i)) {
+                writer.write("null");
+            } else if (cursor.getType(i) == Cursor.FIELD_TYPE_INTEGER) {
+                writer.write(Long.toString(cursor.getLong(i)));
+            } else {
+                writeJsonString(writer, cursor.getString(i));
+            }
+        }
+        writer.write("}\n");
+    }
+
+    private static void writeJsonString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': writer.write("\\\""); break;
+                case '\\': writer.write("\\\\"); break;
+                case '\n': writer.write("\\n"); break;
+                case '\r': writer.write("\\r"); break;
+                case '\t': writer.write("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        writer.write(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+
+    @VisibleForTesting
+    public void copyWithProgress(File source, OutputStream outputStream, Listener listener) throws IOException {
+        try (FileChannel in = new FileInputStream(source).getChannel()) {
+            WritableByteChannel out = Channels.newChannel(outputStream);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_SIZE);
+            long total = in.size();
+            long written = 0;
+            while (in.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    written += out.write(buffer);
+                }
+                buffer.clear();
+
+                long progress = written;
+                mainHandler.post(() -> listener.onProgress(progress, total));
+            }
+            outputStream.flush();
+        }
+    }
+
+    /**
+     * Creates Documents/ReTrackExports/fileName (MediaStore on Android 10+).
+     * The file only becomes visible once {@link ExportTarget#markComplete()} is called
+     * before close, a failed export is deleted instead of left half-written.
+     */
+    public ExportTarget openExportTarget(String fileName, String mimeType) throws IOException {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            // Use MediaStore for Android 10+
+            ContentResolver resolver = context.getContentResolver();
+            ContentValues values = new ContentValues();
+            values.put(MediaStore.MediaColumns.DISPLAY_NAME, fileName);
+            values.put(MediaStore.MediaColumns.MIME_TYPE, mimeType);
+            values.put(MediaStore.MediaColumns.RELATIVE_PATH, Environment.DIRECTORY_DOCUMENTS + "/" + EXPORT_DIR);
+            values.put(MediaStore.MediaColumns.IS_PENDING, 1);
+
+            Uri fileUri = resolver.insert(MediaStore.Files.getContentUri("external"), values);
+            if (fileUri == null) {
+                throw new FileNotFoundException("Failed to create file in Documents directory");
+            }
+            OutputStream stream = resolver.openOutputStream(fileUri);
+            if (stream == null) {
+                resolver.delete(fileUri, null, null);
+                throw new FileNotFoundException("Failed to open " + fileUri);
+            }
+            return new ExportTarget(stream, resolver, fileUri, null);
+        } else {
+            // Use legacy storage for Android 9 and below
+            File exportDir = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOCUMENTS);
+            File retrackDir = new File(exportDir, EXPORT_DIR);
+            if (!retrackDir.exists() && !retrackDir.mkdirs()) {
+                throw new IOException("Failed to create " + EXPORT_DIR + " directory.");
+            }
+            File exportFile = new File(retrackDir, fileName);
+            return new ExportTarget(new FileOutputStream(exportFile), null, null, exportFile);
+        }
+    }
+
+    public static class ExportTarget implements Closeable {
+        public final OutputStream stream;
+        private final ContentResolver resolver;
+        private final Uri uri;
+        private final File file;
+        private boolean complete = false;
+
+        ExportTarget(OutputStream stream, ContentResolver resolver, Uri uri, File file) {
+            this.stream = stream;
+            this.resolver = resolver;
+            this.uri = uri;
+            this.file = file;
+        }
+
+        public void markComplete() {
+            complete = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                stream.close();
+            } finally {
+                if (uri != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                    if (complete) {
+                        ContentValues values = new ContentValues();
+                        values.put(MediaStore.MediaColumns.IS_PENDING, 0);
+                        resolver.update(uri, values, null, null);
+                    } else {
+                        resolver.delete(uri, null, null);
+                    }
+                } else if (!complete && file != null) {
+                    //noinspection ResultOfMethodCallIgnored
+                    file.delete();
+                }
+            }
+        }
+    }
+}
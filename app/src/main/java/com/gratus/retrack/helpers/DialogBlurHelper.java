@@ -1,17 +1,44 @@
 package com.gratus.retrack.helpers;
 
 import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
 import android.graphics.RenderEffect;
 import android.graphics.Shader;
 import android.os.Build;
 import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
 
 public class DialogBlurHelper {
 
+    /**
+     * LIVE blurs the content tree with a RenderEffect (API 31+ only), so every redraw of the
+     * content behind the dialog, e.g. each timer tick, is blurred again on the GPU.
+     * SNAPSHOT draws the content once into a downscaled bitmap, blurs that once on the CPU and
+     * shows it as a static backdrop while the real content is hidden, so ticks behind the dialog
+     * cost nothing. Works on every API level and is what ships; it falls back to LIVE when the
+     * content cannot be captured. LIVE stays selectable for BlurBenchmark's comparison.
+     */
+    public enum Mode { LIVE, SNAPSHOT }
+
+    // Snapshot is drawn at 1/DOWNSCALE size, the blur hides the lost detail
+    private static final int DOWNSCALE = 4;
+    private static final int BLUR_PASSES = 3; // Three box passes come close to a gaussian
+
+    private static Mode defaultMode = Mode.SNAPSHOT;
+
     private final Activity activity;
+    private final Mode mode;
     private View blurredView;
     private float blurRadius;
 
+    // Snapshot mode state
+    private ImageView backdrop;
+    private View hiddenContent;
+    private Bitmap snapshot;
+
     /**
      * @param activity The host activity.
      * @param blurRadius The intensity of the blur (e.g., 10f, 15f).
@@ -19,9 +46,18 @@ public class DialogBlurHelper {
     public DialogBlurHelper(Activity activity, float blurRadius) {
         this.activity = activity;
         this.blurRadius = blurRadius;
+        this.mode = defaultMode;
+    }
+
+    /**
+     * Mode for helpers created from now on. Benchmark builds only, see BlurBenchmark.
+     */
+    public static void setDefaultMode(Mode mode) {
+        defaultMode = mode;
     }
 
     public void applyBlur() {
+        if (mode == Mode.SNAPSHOT && applySnapshotBlur()) return;
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
             blurredView = activity.getWindow().getDecorView().findViewById(android.R.id.content);
             if (blurredView != null) {
@@ -33,10 +69,109 @@ public class DialogBlurHelper {
     }
 
     public void removeBlur() {
+        if (backdrop != null) {
+            hiddenContent.setVisibility(View.VISIBLE);
+            ((ViewGroup) backdrop.getParent()).removeView(backdrop);
+            snapshot.recycle();
+            backdrop = null;
+            hiddenContent = null;
+            snapshot = null;
+        }
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
             if (blurredView != null) {
                 blurredView.setRenderEffect(null);
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * @return false if the content could not be captured, the caller falls back to LIVE
+     */
+    private boolean applySnapshotBlur() {
+        if (backdrop != null) return true; // onStart again, e.g. back from the launcher
+        ViewGroup content = activity.findViewById(android.R.id.content);
+        if (content == null || content.getChildCount() == 0) return false;
+        View root = content.getChildAt(0);
+        if (root.getWidth() == 0 || root.getHeight() == 0) return false;
+
+        Bitmap bitmap = Bitmap.createBitmap(
+                Math.max(1, root.getWidth() / DOWNSCALE),
+                Math.max(1, root.getHeight() / DOWNSCALE),
+                Bitmap.Config.ARGB_8888);
+        try {
+            Canvas canvas = new Canvas(bitmap);
+            canvas.scale((float) bitmap.getWidth() / root.getWidth(), (float) bitmap.getHeight() / root.getHeight());
+            // Views draw without the window background, put it underneath so the blur is opaque
+            if (activity.getWindow().getDecorView().getBackground() != null) {
+                activity.getWindow().getDecorView().getBackground().draw(canvas);
+            }
+            root.draw(canvas);
+        } catch (IllegalArgumentException e) {
+            // Hardware bitmaps cannot be drawn into a software canvas
+            bitmap.recycle();
+            return false;
+        }
+        boxBlur(bitmap, Math.max(1, Math.round(blurRadius / DOWNSCALE)));
+
+        backdrop = new ImageView(activity);
+        backdrop.setScaleType(ImageView.ScaleType.FIT_XY);
+        backdrop.setImageBitmap(bitmap);
+        content.addView(backdrop, new FrameLayout.LayoutParams(root.getWidth(), root.getHeight()));
+
+        // GONE rather than INVISIBLE: timer ticks then skip measure and draw entirely
+        root.setVisibility(View.GONE);
+        hiddenContent = root;
+        snapshot = bitmap;
+        return true;
+    }
+
+    /**
+     * Separable box blur, BLUR_PASSES times, in place. Runs once per dialog on a
+     * quarter-size bitmap, so a few milliseconds on the main thread.
+     */
+    private static void boxBlur(Bitmap bitmap, int radius) {
+        int w = bitmap.getWidth();
+        int h = bitmap.getHeight();
+        int[] pixels = new int[w * h];
+        int[] scratch = new int[w * h];
+        bitmap.getPixels(pixels, 0, w, 0, 0, w, h);
+        for (int pass = 0; pass < BLUR_PASSES; pass++) {
+            blurLines(pixels, scratch, w, h, 1, w, radius);  // Rows
+            blurLines(scratch, pixels, h, w, w, 1, radius);  // Columns
+        }
+        bitmap.setPixels(pixels, 0, w, 0, 0, w, h);
+    }
+
+    /**
+     * Running-sum blur of {@code lines} lines of {@code len} pixels each. Pixel i of a line
+     * is at lineStart + i * step, consecutive lines start {@code lineStride} apart.
+     * Edges are clamped.
+     */
+    private static void blurLines(int[] src, int[] dst, int len, int lines, int step, int lineStride, int radius) {
+        int window = radius * 2 + 1;
+        for (int line = 0; line < lines; line++) {
+            int base = line * lineStride;
+            int a = 0, r = 0, g = 0, b = 0;
+            for (int i = -radius; i <= radius; i++) {
+                int p = src[base + clamp(i, len) * step];
+                a += p >>> 24;
+                r += (p >> 16) & 0xFF;
+                g += (p >> 8) & 0xFF;
+                b += p & 0xFF;
+            }
+            for (int i = 0; i < len; i++) {
+                dst[base + i * step] = ((a / window) << 24) | ((r / window) << 16) | ((g / window) << 8) | (b / window);
+                int out = src[base + clamp(i - radius, len) * step];
+                int in = src[base + clamp(i + radius + 1, len) * step];
+                a += (in >>> 24) - (out >>> 24);
+                r += ((in >> 16) & 0xFF) - ((out >> 16) & 0xFF);
+                g += ((in >> 8) & 0xFF) - ((out >> 8) & 0xFF);
+                b += (in & 0xFF) - (out & 0xFF);
+            }
+        }
+    }
+
+    private static int clamp(int i, int len) {
+        return i < 0 ? 0 : (i >= len ? len - 1 : i);
+    }
+}
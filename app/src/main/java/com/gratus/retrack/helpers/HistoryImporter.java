@@ -0,0 +1,319 @@
+package com.gratus.retrack.helpers;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.gratus.retrack.RelapseDbHelper;
+import com.gratus.retrack.RelapseLog;
+import com.gratus.retrack.RelapseRepository;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Restores history from anything {@link DatabaseExporter} writes: a .db snapshot, CSV or
+ * JSON lines, each optionally gzipped. The format is sniffed from the first bytes, the
+ * input is parsed as a stream and handed to {@link RelapseDbHelper#importRelapses}.
+ * Rows land on the tracker selected when the import starts, a .db snapshot's trackers included.
+ */
+public class HistoryImporter {
+
+    public interface Listener {
+        void onComplete(int imported, int skipped);
+        void onError(Exception e);
+    }
+
+    private static final byte[] SQLITE_MAGIC = "SQLite format 3\0".getBytes(StandardCharsets.US_ASCII);
+    private static final String IMPORT_COPY_NAME = "import_source.db";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "retrack-import"));
+
+    private final Context context;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public HistoryImporter(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public void importFrom(Uri uri, Listener listener) {
+        long trackerId = RelapseRepository.getInstance(context).getTrackerId();
+        executor.execute(() -> {
+            try (InputStream raw = context.getContentResolver().openInputStream(uri)) {
+                if (raw == null) throw new IOException("Could not open " + uri);
+                CountingSource source = openSource(new BufferedInputStream(raw, BUFFER_SIZE));
+                int imported;
+                try {
+                    imported = RelapseDbHelper.getInstance(context).importRelapses(trackerId, source);
+                } finally {
+                    source.close();
+                }
+                int skipped = source.read - imported;
+                mainHandler.post(() -> {
+                    // Main screen and an open history sheet refresh through the usual path
+                    RelapseRepository.getInstance(context).notifyExternalWrite();
+                    listener.onComplete(imported, skipped);
+                });
+            } catch (Exception e) {
+                mainHandler.post(() -> {
+                    // Batches commit as they go, so a failed import may still have added rows
+                    RelapseRepository.getInstance(context).notifyExternalWrite();
+                    listener.onError(e);
+                });
+            }
+        });
+    }
+
+    // --- Format detection ---
+
+    private CountingSource openSource(BufferedInputStream in) throws IOException {
+        in.mark(SQLITE_MAGIC.length);
+        byte[] head = new byte[SQLITE_MAGIC.length];
+        int n = readFully(in, head);
+        in.reset();
+
+        // gzip: unwrap and sniff again
+        if (n >= 2 && (head[0] & 0xff) == 0x1f && (head[1] & 0xff) == 0x8b) {
+            return openSource(new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE));
+        }
+        if (n == SQLITE_MAGIC.length && startsWith(head, SQLITE_MAGIC)) {
+            return new DatabaseSource(copyToCache(in));
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+        reader.mark(BUFFER_SIZE);
+        int first;
+        do {
+            first = reader.read();
+        } while (first != -1 && Character.isWhitespace(first));
+        reader.reset();
+        return first == '{' ? new JsonLinesSource(reader) : new CsvSource(reader);
+    }
+
+    // SQLite needs a real file, so .db imports are spooled to the cache directory first
+    private File copyToCache(InputStream in) throws IOException {
+        File target = new File(context.getCacheDir(), IMPORT_COPY_NAME);
+        try (OutputStream out = new FileOutputStream(target)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int length;
+            while ((length = in.read(buffer)) > 0) {
+                out.write(buffer, 0, length);
+            }
+        }
+        return target;
+    }
+
+    private static int readFully(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int n = in.read(buffer, total, buffer.length - total);
+            if (n < 0) break;
+            total += n;
+        }
+        return total;
+    }
+
+    private static boolean startsWith(byte[] data, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[i] != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    private static RelapseLog newLog(long start, long end, String reason, String steps) {
+        return new RelapseLog(start, end, end - start, reason != null ? reason : "", steps != null ? steps : "");
+    }
+
+    // --- Sources ---
+
+    private abstract static class CountingSource implements RelapseDbHelper.RelapseSource {
+        int read = 0;
+
+        @Override
+        public final RelapseLog next() throws IOException {
+            RelapseLog log = readNext();
+            if (log != null) read++;
+            return log;
+        }
+
+        abstract RelapseLog readNext() throws IOException;
+
+        abstract void close() throws IOException;
+    }
+
+    private static class DatabaseSource extends CountingSource {
+        private final File file;
+        private final SQLiteDatabase db;
+        private final Cursor cursor;
+
+        DatabaseSource(File file) throws IOException {
+            this.file = file;
+            try {
+                db = SQLiteDatabase.openDatabase(file.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+            } catch (RuntimeException e) {
+                throw new IOException("Not a ReTrack database", e);
+            }
+            try {
+                cursor = db.rawQuery("SELECT streak_start_ts, streak_end_ts, why_it_happened, next_steps FROM "
+                        + RelapseDbHelper.TABLE_RELAPSE, null);
+            } catch (RuntimeException e) {
+                db.close();
+                throw new IOException("Not a ReTrack database", e);
+            }
+        }
+
+        @Override
+        RelapseLog readNext() {
+            if (!cursor.moveToNext()) return null;
+            return newLog(cursor.getLong(0), cursor.getLong(1), cursor.getString(2), cursor.getString(3));
+        }
+
+        @Override
+        void close() {
+            cursor.close();
+            db.close();
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    private static class JsonLinesSource extends CountingSource {
+        private final BufferedReader reader;
+
+        JsonLinesSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        RelapseLog readNext() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) continue;
+                try {
+                    JSONObject row = new JSONObject(line);
+                    return newLog(row.getLong("streak_start_ts"), row.getLong("streak_end_ts"),
+                            row.isNull("why_it_happened") ? null : row.optString("why_it_happened"),
+                            row.isNull("next_steps") ? null : row.optString("next_steps"));
+                } catch (JSONException e) {
+                    throw new IOException("Malformed JSON line", e);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /**
+     * RFC 4180 reader: quoted fields may contain commas, doubled quotes and line breaks.
+     * The header row decides which column is which.
+     */
+    private static class CsvSource extends CountingSource {
+        private final Reader reader;
+        private final List<String> fields = new ArrayList<>();
+        private final StringBuilder field = new StringBuilder();
+        private int startIdx = -1, endIdx = -1, reasonIdx = -1, stepsIdx = -1;
+
+        CsvSource(Reader reader) throws IOException {
+            this.reader = reader;
+            if (!readRecord()) throw new IOException("Empty CSV file");
+            for (int i = 0; i < fields.size(); i++) {
+                switch (fields.get(i).trim()) {
+                    case "streak_start_ts": startIdx = i; break;
+                    case "streak_end_ts": endIdx = i; break;
+                    case "why_it_happened": reasonIdx = i; break;
+                    case "next_steps": stepsIdx = i; break;
+                }
+            }
+            if (startIdx < 0 || endIdx < 0) {
+                throw new IOException("CSV header needs streak_start_ts and streak_end_ts");
+            }
+        }
+
+        @Override
+        RelapseLog readNext() throws IOException {
+            while (readRecord()) {
+                if (fields.size() == 1 && fields.get(0).isEmpty()) continue; // Blank line
+                try {
+                    return newLog(Long.parseLong(column(startIdx)), Long.parseLong(column(endIdx)),
+                            column(reasonIdx), column(stepsIdx));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Bad timestamp in CSV", e);
+                }
+            }
+            return null;
+        }
+
+        private String column(int index) {
+            if (index < 0 || index >= fields.size()) return null;
+            String value = fields.get(index);
+            return value.isEmpty() ? null : value;
+        }
+
+        // Fills "fields" with the next record. Returns false at end of input.
+        private boolean readRecord() throws IOException {
+            fields.clear();
+            field.setLength(0);
+            boolean inQuotes = false;
+            boolean any = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                any = true;
+                if (inQuotes) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        int next = reader.read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            inQuotes = false;
+                            if (next != -1) reader.reset();
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    inQuotes = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+            if (!any) return false;
+            fields.add(field.toString());
+            return true;
+        }
+
+        @Override
+        void close() throws IOException {
+            reader.close();
+        }
+    }
+}
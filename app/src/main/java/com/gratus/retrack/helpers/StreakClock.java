@@ -0,0 +1,32 @@
+package com.gratus.retrack.helpers;
+
+/**
+ * Streak-relative day arithmetic. Days are counted from the streak start, not from
+ * local midnight, so the only time the whole-day count changes is start + n * DAY_MS.
+ * Plain Java so the widget schedule can be unit tested on the host.
+ */
+public final class StreakClock {
+
+    public static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    private StreakClock() {
+    }
+
+    public static long daysAt(long startTime, long now) {
+        return Math.max(0, now - startTime) / DAY_MS;
+    }
+
+    /**
+     * Time into the current streak day, what a chronometer shows next to the day count.
+     */
+    public static long intoDayAt(long startTime, long now) {
+        return Math.max(0, now - startTime) % DAY_MS;
+    }
+
+    /**
+     * First instant after {@code now} at which {@link #daysAt} changes.
+     */
+    public static long nextDayBoundary(long startTime, long now) {
+        return startTime + (daysAt(startTime, now) + 1) * DAY_MS;
+    }
+}
@@ -0,0 +1,79 @@
+package com.gratus.retrack.helpers;
+
+import android.annotation.SuppressLint;
+import android.app.Notification;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.text.format.DateFormat;
+
+import androidx.core.app.NotificationChannelCompat;
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+
+import com.gratus.retrack.JourneyStore;
+import com.gratus.retrack.MainActivity;
+import com.gratus.retrack.R;
+
+/**
+ * Optional ongoing notification with the running streak. The counter is the platform
+ * chronometer (setUsesChronometer + setWhen), so the system renders it and the app does no
+ * per-second work; the notification is only re-posted when the start time changes.
+ */
+public final class StreakNotifier {
+
+    private static final String CHANNEL_ID = "streak";
+    private static final int NOTIFICATION_ID = 1;
+
+    // Start time of the posted notification, -1 = none. Main thread only.
+    private static long postedStartTime = -1;
+
+    private StreakNotifier() {
+    }
+
+    /**
+     * Posts, re-posts or cancels the notification to match the store. Cheap when nothing
+     * changed, so it is called on every journey state change.
+     */
+    @SuppressLint("MissingPermission") // areNotificationsEnabled() is false without POST_NOTIFICATIONS
+    public static void sync(Context context, JourneyStore store) {
+        // Called again with every observer once the tracker row is in
+        if (!store.isJourneyLoaded()) return;
+        NotificationManagerCompat manager = NotificationManagerCompat.from(context);
+        boolean show = store.isNotificationEnabled() && store.isRunning() && manager.areNotificationsEnabled();
+        if (!show) {
+            if (postedStartTime != -1) {
+                manager.cancel(NOTIFICATION_ID);
+                postedStartTime = -1;
+            }
+            return;
+        }
+
+        long startTime = store.getStartTime();
+        if (startTime == postedStartTime) return;
+
+        // No-op once the channel exists
+        manager.createNotificationChannel(new NotificationChannelCompat.Builder(
+                CHANNEL_ID, NotificationManagerCompat.IMPORTANCE_LOW)
+                .setName(context.getString(R.string.notification_channel_streak))
+                .setShowBadge(false)
+                .build());
+
+        Intent open = new Intent(context, MainActivity.class);
+        Notification notification = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.drawable.clock_loader_80_24)
+                .setContentTitle(context.getString(R.string.notification_streak_title))
+                .setContentText("Since " + DateFormat.format("dd/MM/yyyy • HH:mm", startTime))
+                .setWhen(startTime)
+                .setShowWhen(true)
+                .setUsesChronometer(true)
+                .setOngoing(true)
+                .setOnlyAlertOnce(true)
+                .setSilent(true)
+                .setCategory(NotificationCompat.CATEGORY_STATUS)
+                .setContentIntent(PendingIntent.getActivity(context, 0, open, PendingIntent.FLAG_IMMUTABLE))
+                .build();
+        manager.notify(NOTIFICATION_ID, notification);
+        postedStartTime = startTime;
+    }
+}
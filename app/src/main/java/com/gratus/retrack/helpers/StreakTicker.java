@@ -0,0 +1,165 @@
+package com.gratus.retrack.helpers;
+
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+/**
+ * Drives the once-per-second streak counter without per-tick garbage.
+ * The start time is held in memory, the "Xh Ym Zs" text is written into a reused
+ * char buffer, and setText is skipped whenever the rendered text has not changed.
+ * <p>
+ * Ticking is bound to the owner's lifecycle: it only runs between STARTED and STOPPED,
+ * and on the way back to STARTED the display catches up straight from the start time.
+ * The per-second callback is the shared {@link TickScheduler}, registered on the phase of
+ * the start time, so the seconds digit flips exactly on time however many counters share it.
+ */
+public class StreakTicker implements DefaultLifecycleObserver, TickScheduler.Tickable {
+
+    private static final long SECOND_MS = 1000L;
+    private static final long MINUTE_MS = 60 * SECOND_MS;
+    private static final long HOUR_MS = 60 * MINUTE_MS;
+    private static final long DAY_MS = 24 * HOUR_MS;
+
+    private final Lifecycle lifecycle;
+    private final TickScheduler scheduler = TickScheduler.getInstance();
+    private final TextView daysView;
+    private final TextView clockView;
+
+    // scratch is formatted into every tick, shown is what the TextView currently references
+    private final char[] scratch = new char[16];
+    private final char[] shown = new char[16];
+    private int shownLength = -1;
+    private long shownDays = -1;
+
+    private long startTime;
+    private boolean running = false; // Journey is running (independent of visibility)
+
+    // Debug: ticks that fired while the owner was not visible. Must stay 0.
+    private int ticksWhileInvisible = 0;
+
+    public StreakTicker(LifecycleOwner owner, TextView daysView, TextView clockView) {
+        this.lifecycle = owner.getLifecycle();
+        this.daysView = daysView;
+        this.clockView = clockView;
+        lifecycle.addObserver(this);
+    }
+
+    public void setStartTime(long startTime) {
+        this.startTime = startTime;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Marks the journey as running. Renders now and keeps ticking while the owner is visible.
+     * Calling it again after {@link #setStartTime} moves the ticks onto the new start's second.
+     */
+    public void start() {
+        running = true;
+        if (isVisible()) {
+            render(System.currentTimeMillis());
+            scheduler.add(this, startTime);
+        }
+    }
+
+    public void stop() {
+        running = false;
+        scheduler.remove(this);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getTicksWhileInvisible() {
+        return ticksWhileInvisible;
+    }
+
+    @Override
+    public void onStart(@NonNull LifecycleOwner owner) {
+        // Catch up: the display is derived from the start time, so one render covers the gap
+        if (running) {
+            render(System.currentTimeMillis());
+            scheduler.add(this, startTime);
+        }
+    }
+
+    @Override
+    public void onStop(@NonNull LifecycleOwner owner) {
+        scheduler.remove(this);
+    }
+
+    @Override
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        scheduler.remove(this);
+        lifecycle.removeObserver(this);
+    }
+
+    private boolean isVisible() {
+        return lifecycle.getCurrentState().isAtLeast(Lifecycle.State.STARTED);
+    }
+
+    @Override
+    public void onTick(long now) {
+        if (!isVisible()) {
+            ticksWhileInvisible++;
+            return;
+        }
+        render(now);
+    }
+
+    private void render(long now) {
+        long diff = now - startTime;
+        if (diff < 0) diff = 0;
+
+        long days = diff / DAY_MS;
+        if (days != shownDays) {
+            shownDays = days; // Changes once a day, a String here is fine
+            daysView.setText(String.valueOf(days));
+        }
+
+        int hours = (int) ((diff % DAY_MS) / HOUR_MS);
+        int minutes = (int) ((diff % HOUR_MS) / MINUTE_MS);
+        int seconds = (int) ((diff % MINUTE_MS) / SECOND_MS);
+
+        int len = 0;
+        len = appendNumber(scratch, len, hours);
+        scratch[len++] = 'h';
+        scratch[len++] = ' ';
+        len = appendNumber(scratch, len, minutes);
+        scratch[len++] = 'm';
+        scratch[len++] = ' ';
+        len = appendNumber(scratch, len, seconds);
+        scratch[len++] = 's';
+
+        if (!sameAsShown(len)) {
+            // TextView keeps a reference to the array, it may only change right before setText
+            System.arraycopy(scratch, 0, shown, 0, len);
+            shownLength = len;
+            clockView.setText(shown, 0, len);
+        }
+    }
+
+    private boolean sameAsShown(int len) {
+        if (len != shownLength) return false;
+        for (int i = 0; i < len; i++) {
+            if (scratch[i] != shown[i]) return false;
+        }
+        return true;
+    }
+
+    // Values are always 0..59 here
+    private static int appendNumber(char[] buffer, int pos, int value) {
+        if (value >= 10) {
+            buffer[pos++] = (char) ('0' + value / 10);
+        }
+        buffer[pos++] = (char) ('0' + value % 10);
+        return pos;
+    }
+}
@@ -0,0 +1,168 @@
+package com.gratus.retrack.helpers;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.os.Trace;
+
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * One main-thread callback shared by every visible counter.
+ * Each counter ticks on the second boundary of its own anchor time (its streak start), so its
+ * seconds digit flips on time whatever the other counters' phases are. The scheduler wakes
+ * once per distinct phase, and phases that fall within a frame of each other share a wakeup,
+ * so that many counters on screen still cost a handful of passes per second rather than one
+ * Handler runnable each.
+ * <p>
+ * Main thread only.
+ */
+public final class TickScheduler {
+
+    public interface Tickable {
+        void onTick(long now);
+    }
+
+    private static final long SECOND_MS = 1000L;
+    // Boundaries this close after the first due one wait for it and share its pass, so a
+    // counter is at most one frame late
+    private static final long COALESCE_MS = 16L;
+    private static final TickScheduler instance = new TickScheduler();
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable tickRunnable = this::tick; // Allocated once, reposted every pass
+
+    // Copy-on-write parallel arrays: registration is rare, a pass iterates without allocating.
+    // phases[i] is where in the second (0..999 ms) tickables[i] flips
+    private Tickable[] tickables = new Tickable[0];
+    private long[] phases = new long[0];
+    private long lastPass = 0; // Wall time of the last pass, counters due after it get the next one
+    private boolean scheduled = false;
+
+    public static TickScheduler getInstance() {
+        return instance;
+    }
+
+    private TickScheduler() {
+    }
+
+    /**
+     * Registers {@code tickable} to tick on the second boundaries of {@code anchorTime}, or
+     * moves it there if it is already registered. The caller renders the current second itself.
+     */
+    public void add(Tickable tickable, long anchorTime) {
+        long phase = Math.floorMod(anchorTime, SECOND_MS);
+        long now = System.currentTimeMillis();
+        int index = indexOf(tickable);
+        if (index >= 0) {
+            if (phases[index] == phase) return;
+            phases = phases.clone();
+            phases[index] = phase;
+        } else {
+            Tickable[] grownTickables = new Tickable[tickables.length + 1];
+            long[] grownPhases = new long[phases.length + 1];
+            System.arraycopy(tickables, 0, grownTickables, 0, tickables.length);
+            System.arraycopy(phases, 0, grownPhases, 0, phases.length);
+            grownTickables[tickables.length] = tickable;
+            grownPhases[phases.length] = phase;
+            tickables = grownTickables;
+            phases = grownPhases;
+        }
+        if (!scheduled) {
+            lastPass = now; // Idle until now, nothing is owed for the time before
+        } else {
+            handler.removeCallbacks(tickRunnable);
+        }
+        schedule(now);
+    }
+
+    public void remove(Tickable tickable) {
+        int index = indexOf(tickable);
+        if (index >= 0) {
+            Tickable[] shrunkTickables = new Tickable[tickables.length - 1];
+            long[] shrunkPhases = new long[phases.length - 1];
+            System.arraycopy(tickables, 0, shrunkTickables, 0, index);
+            System.arraycopy(tickables, index + 1, shrunkTickables, index, tickables.length - index - 1);
+            System.arraycopy(phases, 0, shrunkPhases, 0, index);
+            System.arraycopy(phases, index + 1, shrunkPhases, index, phases.length - index - 1);
+            tickables = shrunkTickables;
+            phases = shrunkPhases;
+        }
+        if (tickables.length == 0) {
+            handler.removeCallbacks(tickRunnable);
+            scheduled = false;
+        }
+    }
+
+    public int size() {
+        return tickables.length;
+    }
+
+    /**
+     * One pass over every registered counter, whatever its phase, without scheduling the next one.
+     */
+    @VisibleForTesting
+    public void dispatch(long now) {
+        Trace.beginSection("ReTrack.tick");
+        try {
+            for (Tickable tickable : tickables) {
+                tickable.onTick(now);
+            }
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    private void tick() {
+        scheduled = false;
+        long now = System.currentTimeMillis();
+        // Locals: a counter added or removed during the pass swaps the arrays, not their contents
+        Tickable[] pass = tickables;
+        long[] passPhases = phases;
+        boolean owedAll = now - lastPass >= SECOND_MS; // Late wakeup, every boundary went by
+        Trace.beginSection("ReTrack.tick");
+        try {
+            for (int i = 0; i < pass.length; i++) {
+                // A counter is due if its latest boundary came after the previous pass
+                if (owedAll || now - Math.floorMod(now - passPhases[i], SECOND_MS) > lastPass) {
+                    pass[i].onTick(now);
+                }
+            }
+        } finally {
+            Trace.endSection();
+        }
+        // If the wakeup came a little early and nothing was due, the schedule below is a
+        // millisecond or two out and lands on the boundary
+        lastPass = now;
+        // A counter added during the pass has already scheduled us
+        if (tickables.length > 0 && !scheduled) schedule(now);
+    }
+
+    // Next wakeup: the first boundary of any counter after now, pushed back to the last
+    // boundary within COALESCE_MS of it
+    private void schedule(long now) {
+        long first = SECOND_MS;
+        for (long phase : phases) {
+            first = Math.min(first, untilBoundary(now, phase));
+        }
+        long delay = first;
+        for (long phase : phases) {
+            long until = untilBoundary(now, phase);
+            if (until <= first + COALESCE_MS) delay = Math.max(delay, until);
+        }
+        handler.postAtTime(tickRunnable, SystemClock.uptimeMillis() + delay);
+        scheduled = true;
+    }
+
+    // 1..1000 ms until the next second boundary of a counter with this phase
+    private static long untilBoundary(long now, long phase) {
+        return SECOND_MS - Math.floorMod(now - phase, SECOND_MS);
+    }
+
+    private int indexOf(Tickable tickable) {
+        for (int i = 0; i < tickables.length; i++) {
+            if (tickables[i] == tickable) return i;
+        }
+        return -1;
+    }
+}
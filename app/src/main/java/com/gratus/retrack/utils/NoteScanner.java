@@ -0,0 +1,234 @@
+package com.gratus.retrack.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parsing half of {@link TextFormatUtils#formatNotesForDisplay}: one pass over the raw note,
+ * no regex, producing the display text with the markers stripped plus where the bullets and
+ * bold runs go. Plain Java (no spans), so it can be checked against the old regex pipeline on
+ * the host.
+ */
+public final class NoteScanner {
+
+    // Spacing constants (in pixels)
+    private static final int BULLET_GAP_WIDTH = 12; // Space between bullet and text
+    private static final int NUMBERED_BULLET_GAP_WIDTH = 12; // Space between bullet and text
+
+    private static final int MAIN_BULLET_INDENT = 24;
+    private static final int SUB_BULLET_INDENT = 48; // Indentation for sub-points
+
+    /**
+     * A bulleted or numbered line, [start, end) in {@link #text}.
+     */
+    public static final class Bullet {
+        public final int start;
+        public final int end;
+        public final String label;
+        public final int gapWidth;
+        public final int indent;
+
+        Bullet(int start, int end, String label, int gapWidth, int indent) {
+            this.start = start;
+            this.end = end;
+            this.label = label;
+            this.gapWidth = gapWidth;
+            this.indent = indent;
+        }
+    }
+
+    public final String text;
+    public final List<Bullet> bullets;
+    /** {start, end} of every bold run in {@link #text}, in text order. */
+    public final List<int[]> boldRuns;
+
+    private NoteScanner(String text, List<Bullet> bullets, List<int[]> boldRuns) {
+        this.text = text;
+        this.bullets = bullets;
+        this.boldRuns = boldRuns;
+    }
+
+    /**
+     * Lines end at "\n" or "\r\n". Zero-length bullets and bold runs (a bare "1." or "- " line,
+     * "****") are not reported; a SpannableStringBuilder drops such spans anyway.
+     */
+    public static NoteScanner scan(String raw) {
+        StringBuilder sb = new StringBuilder(raw.length());
+        // {start, end} pairs, adjusted in place as bold markers are deleted
+        List<int[]> bulletRanges = new ArrayList<>();
+        List<Bullet> bulletStyles = new ArrayList<>();
+
+        int length = raw.length();
+        int lineStart = 0;
+        while (true) {
+            int newline = raw.indexOf('\n', lineStart);
+            boolean isLastLine = newline < 0;
+            int lineEnd = isLastLine ? length : newline;
+            if (!isLastLine && lineEnd > lineStart && raw.charAt(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+
+            int start = sb.length();
+            Bullet style = appendLine(sb, raw.substring(lineStart, lineEnd));
+            if (style != null && sb.length() > start) {
+                bulletRanges.add(new int[]{start, sb.length()});
+                bulletStyles.add(style);
+            }
+
+            if (isLastLine) break;
+            sb.append('\n');
+            lineStart = newline + 1;
+        }
+
+        List<int[]> boldRuns = stripBoldMarkers(sb, bulletRanges);
+
+        List<Bullet> bullets = new ArrayList<>(bulletRanges.size());
+        for (int b = 0; b < bulletRanges.size(); b++) {
+            int[] range = bulletRanges.get(b);
+            if (range[0] == range[1]) continue; // The line was nothing but bold markers
+            Bullet style = bulletStyles.get(b);
+            bullets.add(new Bullet(range[0], range[1], style.label, style.gapWidth, style.indent));
+        }
+        return new NoteScanner(sb.toString(), bullets, boldRuns);
+    }
+
+    // Appends the line's display text, returns its bullet style (range unset) or null for plain text
+    private static Bullet appendLine(StringBuilder sb, String line) {
+        // 1. Numbered list: optional spaces, digits, "." or ")", optional spaces (e.g. "1.", " 12) ")
+        int numberEnd = matchNumberPrefix(line);
+        if (numberEnd > 0) {
+            int digitsStart = skipWhitespace(line, 0);
+            int digitsEnd = digitsStart;
+            while (isAsciiDigit(line.charAt(digitsEnd))) digitsEnd++;
+
+            sb.append(line.substring(numberEnd).trim());
+            // Use the number + "." as the bullet character instead of \u2022
+            return new Bullet(0, 0, line.substring(digitsStart, digitsEnd) + ".", NUMBERED_BULLET_GAP_WIDTH, 0);
+        }
+
+        // 2. Dash bullets: "- ", "-- ", "--- ", ... counted from the very start of the line
+        if (line.trim().startsWith("-")) {
+            int dashCount = 0;
+            while (dashCount < line.length() && line.charAt(dashCount) == '-') {
+                dashCount++;
+            }
+            // Require a space after the dashes to qualify as a bullet
+            if (dashCount > 0 && dashCount < line.length() && line.charAt(dashCount) == ' ') {
+                sb.append(line.substring(dashCount + 1).trim());
+                // Decide bullet style and indent based on dash count
+                String bulletChar;
+                int indent = switch (dashCount) {
+                    case 1 -> { // First dash (- )
+                        bulletChar = "\u2022"; // filled bullet
+                        yield 0;
+                    }
+                    case 2 -> { // Second dash (-- )
+                        bulletChar = "•"; // filled bullet
+                        yield MAIN_BULLET_INDENT;
+                    }
+                    case 3 -> { // Third dash (--- )
+                        bulletChar = "৹"; // hollow bullet
+                        yield SUB_BULLET_INDENT;
+                    }
+                    default -> { // More than 3 dashes (----... )
+                        bulletChar = "\u09F9"; // hollow bullet for deeper levels
+                        yield SUB_BULLET_INDENT + (dashCount - 3) * 20;
+                    }
+                };
+                return new Bullet(0, 0, bulletChar, BULLET_GAP_WIDTH, indent);
+            }
+        }
+
+        // 3. Regular text (or a dash line that is not a valid bullet)
+        sb.append(line);
+        return null;
+    }
+
+    // Returns the end of a "  12.  " style prefix, or -1 if the line does not start with one
+    private static int matchNumberPrefix(String line) {
+        int i = skipWhitespace(line, 0);
+        int digitsStart = i;
+        while (i < line.length() && isAsciiDigit(line.charAt(i))) i++;
+        if (i == digitsStart || i >= line.length()) return -1;
+
+        char punctuation = line.charAt(i);
+        if (punctuation != '.' && punctuation != ')') return -1;
+        return skipWhitespace(line, i + 1);
+    }
+
+    private static int skipWhitespace(String line, int from) {
+        int i = from;
+        while (i < line.length() && isRegexWhitespace(line.charAt(i))) i++;
+        return i;
+    }
+
+    // Same set as regex \s
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // --- **bold** markers ---
+    // A pair must close on the same line, the earliest closing "**" wins. Markers are deleted
+    // last to first and every recorded range shifts the way span bounds do in a Spannable.
+    private static List<int[]> stripBoldMarkers(StringBuilder sb, List<int[]> bulletRanges) {
+        List<int[]> matches = new ArrayList<>();
+        int length = sb.length();
+        int i = 0;
+        while (i + 1 < length) {
+            if (sb.charAt(i) == '*' && sb.charAt(i + 1) == '*') {
+                int close = findClosingMarker(sb, i + 2);
+                if (close >= 0) {
+                    matches.add(new int[]{i, close + 2});
+                    i = close + 2;
+                    continue;
+                }
+            }
+            i++;
+        }
+
+        List<int[]> boldRuns = new ArrayList<>(matches.size());
+        for (int m = matches.size() - 1; m >= 0; m--) {
+            int start = matches.get(m)[0];
+            int end = matches.get(m)[1];
+            sb.delete(end - 2, end);
+            sb.delete(start, start + 2);
+            shift(bulletRanges, start, end);
+            shift(boldRuns, start, end);
+            if (end - start > 4) {
+                boldRuns.add(0, new int[]{start, end - 4});
+            }
+        }
+        return boldRuns;
+    }
+
+    // Applies the deletion of [end - 2, end) and then [start, start + 2) to every range
+    private static void shift(List<int[]> ranges, int start, int end) {
+        for (int[] range : ranges) {
+            for (int k = 0; k < 2; k++) {
+                range[k] = shiftPoint(shiftPoint(range[k], end - 2, end), start, start + 2);
+            }
+        }
+    }
+
+    private static int shiftPoint(int point, int deleteStart, int deleteEnd) {
+        if (point >= deleteEnd) return point - (deleteEnd - deleteStart);
+        return Math.min(point, deleteStart);
+    }
+
+    private static int findClosingMarker(CharSequence text, int from) {
+        for (int j = from; j + 1 < text.length(); j++) {
+            char c = text.charAt(j);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return -1;
+            }
+            if (c == '*' && text.charAt(j + 1) == '*') {
+                return j;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,103 @@
+package com.gratus.retrack.utils;
+
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+
+/**
+ * Timed spans around the phases of MainActivity startup.
+ * Each span is also an android.os.Trace section (named "ReTrack.<phase>") so it shows up in
+ * Perfetto and in the :benchmark module's TraceSectionMetric. When {@link #finish()} is
+ * called the span durations are logged as a one-line summary under the "StartupTrace" tag.
+ * A theme switch is measured the same way, from the tap through the recreate.
+ * Main thread only, spans do not nest.
+ */
+public final class StartupTrace {
+
+    public static final String SECTION_PREFIX = "ReTrack.";
+
+    private static final String TAG = "StartupTrace";
+    private static final int MAX_SPANS = 16;
+
+    private static final String[] names = new String[MAX_SPANS];
+    private static final long[] durationsNs = new long[MAX_SPANS];
+    private static int count = 0;
+
+    private static long originNs = 0;
+    private static long pendingSwitchNs = 0; // set by markThemeSwitch(), consumed by start()
+    private static String label = "startup";
+    private static long spanStartNs = 0;
+    private static boolean active = false;
+    private static boolean inSpan = false;
+
+    private StartupTrace() {
+    }
+
+    /**
+     * Starts a new startup measurement, dropping anything recorded by a previous one.
+     */
+    public static void start() {
+        count = 0;
+        inSpan = false;
+        active = true;
+        if (pendingSwitchNs != 0) {
+            // Recreated by a theme switch, time it from the tap
+            originNs = pendingSwitchNs;
+            pendingSwitchNs = 0;
+            label = "themeSwitch";
+        } else {
+            originNs = SystemClock.elapsedRealtimeNanos();
+            label = "startup";
+        }
+    }
+
+    /**
+     * Call right before switching night mode. If that recreates the activity, the next
+     * measurement is logged as "themeSwitch" and includes the time spent tearing down.
+     */
+    public static void markThemeSwitch() {
+        pendingSwitchNs = SystemClock.elapsedRealtimeNanos();
+    }
+
+    public static void begin(String phase) {
+        if (!active) return;
+        if (inSpan) end();
+        Trace.beginSection(SECTION_PREFIX + phase);
+        names[count] = phase;
+        inSpan = true;
+        spanStartNs = SystemClock.elapsedRealtimeNanos();
+    }
+
+    public static void end() {
+        if (!inSpan) return;
+        durationsNs[count] = SystemClock.elapsedRealtimeNanos() - spanStartNs;
+        Trace.endSection();
+        inSpan = false;
+        // Keep the last slot free rather than growing, the summary just loses the tail
+        if (count < MAX_SPANS - 1) count++;
+    }
+
+    /**
+     * Ends the measurement and logs e.g.
+     * "startup 41.2ms: theme 1.3ms, inflate 22.7ms, ..., stats 9.8ms".
+     * Gaps between spans are in the total but not listed.
+     */
+    public static void finish() {
+        if (!active) return;
+        end();
+        active = false;
+        StringBuilder sb = new StringBuilder(128)
+                .append(label).append(' ')
+                .append(formatMs(SystemClock.elapsedRealtimeNanos() - originNs))
+                .append(':');
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? " " : ", ").append(names[i]).append(' ').append(formatMs(durationsNs[i]));
+        }
+        Log.i(TAG, sb.toString());
+    }
+
+    private static String formatMs(long ns) {
+        long tenthsOfMs = ns / 100_000;
+        return (tenthsOfMs / 10) + "." + (tenthsOfMs % 10) + "ms";
+    }
+}
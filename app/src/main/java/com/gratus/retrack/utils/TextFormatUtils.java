@@ -6,122 +6,57 @@ import android.graphics.Typeface;
 import android.text.Layout;
 import android.text.Spannable;
 import android.text.SpannableStringBuilder;
+import android.text.SpannedString;
 import android.text.style.LeadingMarginSpan;
 import android.text.style.StyleSpan;
+import android.util.LruCache;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.TimeUnit;
 
 public class TextFormatUtils {
 
-    // Spacing constants (in pixels)
-    private static final int BULLET_GAP_WIDTH = 12; // Space between bullet and text
-    private static final int NUMBERED_BULLET_GAP_WIDTH = 12; // Space between bullet and text
+    /**
+     * Short human duration for summaries, e.g. "3d 4h", "5h 12m", "7m".
+     */
+    public static String formatCompactDuration(long ms) {
+        long days = TimeUnit.MILLISECONDS.toDays(ms);
+        long hours = TimeUnit.MILLISECONDS.toHours(ms) % 24;
+        long minutes = TimeUnit.MILLISECONDS.toMinutes(ms) % 60;
+        if (days > 0) return days + "d " + hours + "h";
+        if (hours > 0) return hours + "h " + minutes + "m";
+        return minutes + "m";
+    }
 
-    private static final int MAIN_BULLET_INDENT = 24;
-    private static final int SUB_BULLET_INDENT = 48; // Indentation for sub-points
+    // Rendered notes keyed by their raw text. Binding the same row again is a map hit.
+    private static final int RENDER_CACHE_SIZE = 256;
+    private static final LruCache<String, CharSequence> renderCache = new LruCache<>(RENDER_CACHE_SIZE);
 
     /**
      * Formatting for Notes.
      * Handles Main Bullets (\u2022) and Sub-Bullets (\u25E6 | \u09F9).
+     * Results are immutable and cached, so this is safe to call from any thread.
      */
     public static CharSequence formatNotesForDisplay(String raw) {
         if (raw == null || raw.trim().isEmpty()) return "";
 
-        SpannableStringBuilder ssb = new SpannableStringBuilder();
-        String[] lines = raw.split("\\r?\\n", -1);
-        // 1. Define the pattern for numbers (e.g., "1.", "12.", "1)")
-        // ^\s* matches start of line with optional spaces
-        // (\d+) captures the digits
-        // [.)] matches either a dot or a closing parenthesis
-        // \s* matches optional space after the punctuation
-        Pattern numberPattern = Pattern.compile("^\\s*(\\d+)[.)]\\s*");
-
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i];
-            int start = ssb.length();
-            boolean isLastLine = (i == lines.length - 1);
-
-            Matcher matcher = numberPattern.matcher(line);
-
-            if (matcher.find()) {
-                // NUMBERED LIST MATCHED
-                String numberStr = matcher.group(1); // The actual number (e.g., "1")
-                String fullMatch = matcher.group(0); // The whole "1. " part
-
-                String content = line.substring(fullMatch.length()).trim();
-                ssb.append(content);
-
-                // Use the number + "." as the bullet character instead of \u2022
-                ssb.setSpan(new TextBulletSpan(numberStr + ".", NUMBERED_BULLET_GAP_WIDTH, 0),
-                        start, ssb.length(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
-
-            } else if (line.trim().startsWith("-")) {
-                // Count consecutive dashes at the start
-                int dashCount = 0;
-                while (dashCount < line.length() && line.charAt(dashCount) == '-') {
-                    dashCount++;
-                }
-                // Require a space after the dashes to qualify as a bullet
-                if (dashCount > 0 && dashCount < line.length() && line.charAt(dashCount) == ' ') {
-                    String content = line.substring(dashCount + 1).trim();
-                    ssb.append(content);
-                    // Decide bullet style and indent based on dash count
-                    String bulletChar;
-                    int indent = switch (dashCount) {
-                        case 1 -> { // First dash (- )
-                            bulletChar = "\u2022"; // filled bullet
-                            yield 0;
-                        }
-                        case 2 -> { // Second dash (-- )
-                            bulletChar = "•"; // filled bullet
-                            yield MAIN_BULLET_INDENT;
-                        }
-                        case 3 -> { // Third dash (--- )
-                            bulletChar = "৹"; // hollow bullet
-                            yield SUB_BULLET_INDENT;
-                        }
-                        default -> { // More than 3 dashes (----... )
-                            bulletChar = "\u09F9"; // hollow bullet for deeper levels
-                            yield SUB_BULLET_INDENT + (dashCount - 3) * 20;
-                        }
-                    };
-                    ssb.setSpan(new TextBulletSpan(bulletChar, BULLET_GAP_WIDTH, indent),
-                            start, ssb.length(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
-                } else {
-                    // Not a valid bullet, just append text
-                    ssb.append(line);
-                }
-            } else {
-                // Regular text
-                ssb.append(line);
-            }
-
+        CharSequence cached = renderCache.get(raw);
+        if (cached != null) return cached;
 
-            if (!isLastLine) ssb.append("\n");
-        }
-
-        return applyBoldFormatting(ssb);
+        CharSequence rendered = new SpannedString(renderNotes(raw));
+        renderCache.put(raw, rendered);
+        return rendered;
     }
 
-    // --- Helper: Clean up **bold** markers ---
-    private static SpannableStringBuilder applyBoldFormatting(SpannableStringBuilder ssb) {
-        Pattern boldPattern = Pattern.compile("\\*\\*(.*?)\\*\\*");
-        Matcher matcher = boldPattern.matcher(ssb);
-
-        List<int[]> matches = new ArrayList<>();
-        while (matcher.find()) {
-            matches.add(new int[]{matcher.start(), matcher.end()});
+    // Parsing is NoteScanner's single pass, all that is left here is attaching the spans
+    private static SpannableStringBuilder renderNotes(String raw) {
+        NoteScanner scan = NoteScanner.scan(raw);
+        SpannableStringBuilder ssb = new SpannableStringBuilder(scan.text);
+        for (NoteScanner.Bullet bullet : scan.bullets) {
+            ssb.setSpan(new TextBulletSpan(bullet.label, bullet.gapWidth, bullet.indent),
+                    bullet.start, bullet.end, Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
         }
-
-        for (int i = matches.size() - 1; i >= 0; i--) {
-            int start = matches.get(i)[0];
-            int end = matches.get(i)[1];
-            ssb.setSpan(new StyleSpan(Typeface.BOLD), start + 2, end - 2, Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
-            ssb.delete(end - 2, end);
-            ssb.delete(start, start + 2);
+        for (int[] run : scan.boldRuns) {
+            ssb.setSpan(new StyleSpan(Typeface.BOLD), run[0], run[1], Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
         }
         return ssb;
     }
@@ -0,0 +1,113 @@
+package com.gratus.retrack.helpers;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * The rollups are only as right as the day split. Runs 20 years of synthetic streaks through
+ * it in a zone with DST and checks the pieces against the calendar.
+ */
+public class CalendarDaysTest {
+
+    private static final long HOUR_MS = 60L * 60 * 1000;
+    private static final TimeZone BERLIN = TimeZone.getTimeZone("Europe/Berlin");
+    private static final long FROM = 1_262_304_000_000L; // 2010-01-01 UTC
+    private static final long YEARS_20 = 20 * 365L * CalendarDays.DAY_MS;
+
+    @Test
+    public void monthIndexMatchesGregorianCalendar() {
+        GregorianCalendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        long firstDay = CalendarDays.epochDay(FROM, BERLIN) - 365;
+        for (long day = firstDay; day < firstDay + 21 * 366; day++) {
+            calendar.setTimeInMillis(day * CalendarDays.DAY_MS);
+            long expected = calendar.get(Calendar.YEAR) * 12L + calendar.get(Calendar.MONTH);
+            assertEquals("day " + day, expected, CalendarDays.monthOf(day));
+        }
+    }
+
+    @Test
+    public void startOfDayIsLocalMidnightAcrossDst() {
+        long firstDay = CalendarDays.epochDay(FROM, BERLIN);
+        for (long day = firstDay; day < firstDay + 20 * 366; day++) {
+            long midnight = CalendarDays.startOfDay(day, BERLIN);
+            assertEquals(day, CalendarDays.epochDay(midnight, BERLIN));
+            assertEquals(day - 1, CalendarDays.epochDay(midnight - 1, BERLIN));
+        }
+    }
+
+    @Test
+    public void dayStartingInDstGapStartsAtTheJump() {
+        // Sao Paulo 2010-10-17: clocks jumped from 23:59 to 01:00, local midnight never happened
+        TimeZone saoPaulo = TimeZone.getTimeZone("America/Sao_Paulo");
+        long day = 14_899;
+        long start = CalendarDays.startOfDay(day, saoPaulo);
+        assertEquals(1_287_284_400_000L, start); // 03:00 UTC, 01:00 -02:00
+        assertEquals(day - 1, CalendarDays.epochDay(start - 1, saoPaulo));
+        assertEquals(23 * HOUR_MS, CalendarDays.startOfDay(day + 1, saoPaulo) - start);
+    }
+
+    @Test
+    public void repeatedMidnightStartsTheDayAtItsFirstOccurrence() {
+        // Amman 2010-10-29: clocks fell back from 01:00 to 00:00, local midnight happened twice
+        TimeZone amman = TimeZone.getTimeZone("Asia/Amman");
+        long day = 14_911;
+        long start = CalendarDays.startOfDay(day, amman);
+        assertEquals(1_288_299_600_000L, start); // 21:00 UTC, 00:00 +03:00
+        assertEquals(day - 1, CalendarDays.epochDay(start - 1, amman));
+        assertEquals(24 * HOUR_MS, start - CalendarDays.startOfDay(day - 1, amman));
+        assertEquals(25 * HOUR_MS, CalendarDays.startOfDay(day + 1, amman) - start);
+    }
+
+    @Test
+    public void twentyYearsOfStreaksSplitExactly() {
+        Random random = new Random(7);
+        long start = FROM;
+        int streaks = 0;
+        long totalMs = 0;
+        long[] splitMs = {0};
+        long[] lastDay = {Long.MIN_VALUE};
+
+        while (start < FROM + YEARS_20) {
+            // Mostly short streaks with the occasional months-long one
+            long length = random.nextInt(10) == 0
+                    ? random.nextInt(200) * CalendarDays.DAY_MS
+                    : random.nextInt(72) * HOUR_MS + random.nextInt(3_600_000);
+            long end = start + length;
+            long streakStart = start;
+            long[] pieces = {0};
+
+            long resetDay = CalendarDays.splitByDay(streakStart, end, BERLIN, (day, ms) -> {
+                assertTrue("days ascend", day >= lastDay[0]);
+                assertTrue("piece fits in its day", ms >= 0 && ms <= 25 * HOUR_MS);
+                lastDay[0] = day;
+                pieces[0] += ms;
+            });
+
+            assertEquals(streakStart + "-" + end, length, pieces[0]);
+            assertEquals(CalendarDays.epochDay(end, BERLIN), resetDay);
+            splitMs[0] += pieces[0];
+            totalMs += length;
+            streaks++;
+            start = end + random.nextInt(60_000);
+        }
+
+        assertTrue(streaks > 500);
+        assertEquals(totalMs, splitMs[0]);
+    }
+
+    @Test
+    public void streakEndingAtMidnightResetsOnTheNewDay() {
+        long day = CalendarDays.epochDay(FROM, BERLIN) + 100;
+        long midnight = CalendarDays.startOfDay(day, BERLIN);
+        int[] pieces = {0};
+        long resetDay = CalendarDays.splitByDay(midnight - HOUR_MS, midnight, BERLIN, (d, ms) -> pieces[0]++);
+        assertEquals(day, resetDay);
+        assertEquals(2, pieces[0]); // An hour in the old day, 0 ms in the new one
+    }
+}
@@ -0,0 +1,58 @@
+package com.gratus.retrack.helpers;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * The widget only schedules itself at StreakClock day boundaries, the chronometer covers
+ * hours, minutes and seconds. Walks that schedule over simulated time and counts updates.
+ */
+public class StreakClockTest {
+
+    private static final long HOUR_MS = 60L * 60 * 1000;
+    private static final long START = 1_700_000_000_000L;
+
+    // Updates the widget would issue in (from, to], following its own schedule
+    private static int scheduledUpdates(long startTime, long from, long to) {
+        int updates = 0;
+        long now = from;
+        while (true) {
+            long next = StreakClock.nextDayBoundary(startTime, now);
+            assertTrue("schedule must move forward", next > now);
+            if (next > to) return updates;
+            updates++;
+            now = next;
+        }
+    }
+
+    @Test
+    public void oneUpdatePerSimulatedDay() {
+        for (long offset = 0; offset < StreakClock.DAY_MS; offset += HOUR_MS / 2) {
+            long from = START + 3 * StreakClock.DAY_MS + offset;
+            assertEquals(1, scheduledUpdates(START, from, from + StreakClock.DAY_MS));
+        }
+    }
+
+    @Test
+    public void weekOfUpdatesMatchesDays() {
+        long from = START + 5 * HOUR_MS;
+        assertEquals(7, scheduledUpdates(START, from, from + 7 * StreakClock.DAY_MS));
+    }
+
+    @Test
+    public void dayCountChangesExactlyAtBoundary() {
+        long boundary = StreakClock.nextDayBoundary(START, START + 10 * HOUR_MS);
+        assertEquals(START + StreakClock.DAY_MS, boundary);
+        assertEquals(0, StreakClock.daysAt(START, boundary - 1));
+        assertEquals(1, StreakClock.daysAt(START, boundary));
+        assertEquals(0, StreakClock.intoDayAt(START, boundary));
+    }
+
+    @Test
+    public void clockSetBeforeStartCountsAsDayZero() {
+        long now = START - HOUR_MS;
+        assertEquals(0, StreakClock.daysAt(START, now));
+        assertEquals(START + StreakClock.DAY_MS, StreakClock.nextDayBoundary(START, now));
+    }
+}
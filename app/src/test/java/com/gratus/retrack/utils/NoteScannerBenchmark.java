@@ -0,0 +1,53 @@
+package com.gratus.retrack.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Microbenchmark: parse cost per note of NoteScanner against the old regex pipeline
+ * (which compiled both patterns on every call), for plain, bulleted, numbered and
+ * bold-heavy notes. Results go to stdout; the scanner must win on every kind.
+ * Span attachment and the render cache are Android-side and not measured here.
+ */
+public class NoteScannerBenchmark {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+
+    private static final String PLAIN = "Felt tired after a long day at work and scrolled my phone late at night.\n"
+            + "Next time I will put it in the other room.";
+    private static final String BULLETED = "- tired after work\n-- stayed up late\n--- phone in bed\n"
+            + "- bored\n-- nothing planned\n---- deeper note";
+    private static final String NUMBERED = "1. walk after dinner\n2. phone out of the bedroom\n"
+            + "3) call a friend\n  10.  journal before sleep";
+    private static final String BOLD_HEAVY = "**Trigger:** **stress** at **work**\n"
+            + "- **walk** then **journal**\n1. **no phone** after **10pm**";
+
+    @Test
+    public void scannerBeatsRegexOnEveryKind() {
+        String[][] corpora = {{"plain", PLAIN}, {"bulleted", BULLETED}, {"numbered", NUMBERED}, {"bold-heavy", BOLD_HEAVY}};
+        for (String[] corpus : corpora) {
+            String note = corpus[1];
+            double scanner = nsPerOp(() -> NoteScanner.scan(note).text.length());
+            double regex = nsPerOp(() -> RegexNoteRenderer.render(note).text.length());
+            System.out.printf("%-10s scanner %7.0f ns/op, regex %7.0f ns/op (%.1fx)%n",
+                    corpus[0], scanner, regex, regex / scanner);
+            assertTrue(corpus[0] + ": scanner " + scanner + " vs regex " + regex, scanner < regex);
+        }
+    }
+
+    private interface Op {
+        int run();
+    }
+
+    private static double nsPerOp(Op op) {
+        int sink = 0;
+        for (int i = 0; i < WARMUP; i++) sink += op.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) sink += op.run();
+        long elapsed = System.nanoTime() - start;
+        if (sink == 42) System.out.print(""); // Keeps the results live
+        return (double) elapsed / ITERATIONS;
+    }
+}
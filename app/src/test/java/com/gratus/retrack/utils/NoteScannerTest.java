@@ -0,0 +1,89 @@
+package com.gratus.retrack.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * NoteScanner against the regex pipeline it replaced, over hand-picked edge cases and a
+ * generated corpus: same display text, same bullets, same bold runs.
+ */
+public class NoteScannerTest {
+
+    private static final String[] EDGE_CASES = {
+            "plain text",
+            "line one\nline two\r\nline three\n",
+            "1. first\n2) second\n  12.   spaced\n3.no space",
+            "1.", "1.\n2.", " 7) ", "1", "12", "1.5 litres", "a1. not a list",
+            "- ", "- a\n-- b\n--- c\n---- d\n------ e", "-no space", " - leading space", "--", "-",
+            "****", "** **", "**bold** and **more**", "**open only", "**a\nb**", "***x***", "*****",
+            "- **bold bullet**", "- ****", "1. ****", "**x** - y", "** **", "**a\u0085b**",
+            "\t3.\ttabbed", "\u000B4. vertical tab", "**", "\r\n", "\n\n\n", "- **a** **b**",
+    };
+
+    @Test
+    public void edgeCasesMatchRegexPipeline() {
+        for (String raw : EDGE_CASES) {
+            assertSameRendering(raw);
+        }
+    }
+
+    @Test
+    public void generatedCorpusMatchesRegexPipeline() {
+        String[] tokens = {"-", "--", "---", "----", " ", "  ", "\t", "1", "23", ".", ")", "*", "**",
+                "\n", "\r\n", "\r", " ", "walk", "sleep", "early", "x"};
+        Random random = new Random(19);
+        for (int n = 0; n < 20_000; n++) {
+            StringBuilder raw = new StringBuilder();
+            int count = 1 + random.nextInt(14);
+            for (int t = 0; t < count; t++) {
+                raw.append(tokens[random.nextInt(tokens.length)]);
+            }
+            assertSameRendering(raw.toString());
+        }
+    }
+
+    private static void assertSameRendering(String raw) {
+        RegexNoteRenderer expected = RegexNoteRenderer.render(raw);
+        NoteScanner actual = NoteScanner.scan(raw);
+        String where = "for " + escape(raw);
+
+        assertEquals(where, expected.text.toString(), actual.text);
+
+        List<String> expectedSpans = new ArrayList<>();
+        for (int[] span : expected.spans) {
+            if (span[2] == 0) {
+                expectedSpans.add("bold " + span[0] + "-" + span[1]);
+            } else {
+                int[] style = expected.styles.get(span[2] - 1);
+                expectedSpans.add("bullet " + span[0] + "-" + span[1] + " " + expected.labels.get(span[2] - 1)
+                        + " gap " + style[0] + " indent " + style[1]);
+            }
+        }
+        List<String> actualSpans = new ArrayList<>();
+        for (int[] run : actual.boldRuns) {
+            actualSpans.add("bold " + run[0] + "-" + run[1]);
+        }
+        for (NoteScanner.Bullet b : actual.bullets) {
+            actualSpans.add("bullet " + b.start + "-" + b.end + " " + b.label
+                    + " gap " + b.gapWidth + " indent " + b.indent);
+        }
+        Collections.sort(expectedSpans);
+        Collections.sort(actualSpans);
+        assertEquals(where, expectedSpans, actualSpans);
+    }
+
+    private static String escape(String raw) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : raw.toCharArray()) {
+            if (c < 0x20 || c > 0x7E) sb.append(String.format("\\u%04X", (int) c));
+            else sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+}
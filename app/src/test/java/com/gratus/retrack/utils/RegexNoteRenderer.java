@@ -0,0 +1,120 @@
+package com.gratus.retrack.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The regex pipeline formatNotesForDisplay used before NoteScanner, line for line, with the
+ * SpannableStringBuilder replaced by a StringBuilder plus span ranges that follow the same
+ * rules: a zero-length SPAN_EXCLUSIVE_EXCLUSIVE span is never set, span bounds shift with
+ * deletions, and a span whose whole range is deleted disappears.
+ */
+final class RegexNoteRenderer {
+
+    private static final int BULLET_GAP_WIDTH = 12;
+    private static final int NUMBERED_BULLET_GAP_WIDTH = 12;
+    private static final int MAIN_BULLET_INDENT = 24;
+    private static final int SUB_BULLET_INDENT = 48;
+
+    /** {start, end, kind} where kind is 0 for bold, otherwise index + 1 into labels/indents. */
+    final List<int[]> spans = new ArrayList<>();
+    final List<String> labels = new ArrayList<>();
+    final List<int[]> styles = new ArrayList<>(); // {gapWidth, indent}
+    final StringBuilder text = new StringBuilder();
+
+    static RegexNoteRenderer render(String raw) {
+        RegexNoteRenderer r = new RegexNoteRenderer();
+        String[] lines = raw.split("\\r?\\n", -1);
+        Pattern numberPattern = Pattern.compile("^\\s*(\\d+)[.)]\\s*");
+
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            int start = r.text.length();
+            boolean isLastLine = (i == lines.length - 1);
+
+            Matcher matcher = numberPattern.matcher(line);
+            if (matcher.find()) {
+                String numberStr = matcher.group(1);
+                String fullMatch = matcher.group(0);
+                r.text.append(line.substring(fullMatch.length()).trim());
+                r.setBullet(numberStr + ".", NUMBERED_BULLET_GAP_WIDTH, 0, start);
+            } else if (line.trim().startsWith("-")) {
+                int dashCount = 0;
+                while (dashCount < line.length() && line.charAt(dashCount) == '-') {
+                    dashCount++;
+                }
+                if (dashCount > 0 && dashCount < line.length() && line.charAt(dashCount) == ' ') {
+                    r.text.append(line.substring(dashCount + 1).trim());
+                    String bulletChar;
+                    int indent = switch (dashCount) {
+                        case 1 -> {
+                            bulletChar = "•";
+                            yield 0;
+                        }
+                        case 2 -> {
+                            bulletChar = "•";
+                            yield MAIN_BULLET_INDENT;
+                        }
+                        case 3 -> {
+                            bulletChar = "৹";
+                            yield SUB_BULLET_INDENT;
+                        }
+                        default -> {
+                            bulletChar = "৹";
+                            yield SUB_BULLET_INDENT + (dashCount - 3) * 20;
+                        }
+                    };
+                    r.setBullet(bulletChar, BULLET_GAP_WIDTH, indent, start);
+                } else {
+                    r.text.append(line);
+                }
+            } else {
+                r.text.append(line);
+            }
+            if (!isLastLine) r.text.append("\n");
+        }
+
+        Pattern boldPattern = Pattern.compile("\\*\\*(.*?)\\*\\*");
+        Matcher matcher = boldPattern.matcher(r.text);
+        List<int[]> matches = new ArrayList<>();
+        while (matcher.find()) {
+            matches.add(new int[]{matcher.start(), matcher.end()});
+        }
+        for (int i = matches.size() - 1; i >= 0; i--) {
+            int start = matches.get(i)[0];
+            int end = matches.get(i)[1];
+            r.setSpan(start + 2, end - 2, 0);
+            r.delete(end - 2, end);
+            r.delete(start, start + 2);
+        }
+        return r;
+    }
+
+    private void setBullet(String label, int gapWidth, int indent, int start) {
+        labels.add(label);
+        styles.add(new int[]{gapWidth, indent});
+        setSpan(start, text.length(), labels.size());
+    }
+
+    private void setSpan(int start, int end, int kind) {
+        if (start == end) return; // Refused (and logged) by SpannableStringBuilder
+        spans.add(new int[]{start, end, kind});
+    }
+
+    private void delete(int start, int end) {
+        text.delete(start, end);
+        for (int s = spans.size() - 1; s >= 0; s--) {
+            int[] span = spans.get(s);
+            if (span[0] >= start && span[1] <= end) {
+                spans.remove(s); // Its whole range is gone
+                continue;
+            }
+            for (int k = 0; k < 2; k++) {
+                if (span[k] >= end) span[k] -= end - start;
+                else if (span[k] > start) span[k] = start;
+            }
+        }
+    }
+}
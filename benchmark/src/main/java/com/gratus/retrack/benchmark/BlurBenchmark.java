@@ -0,0 +1,103 @@
+package com.gratus.retrack.benchmark;
+
+import android.content.Intent;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.Metric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.BySelector;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.List;
+
+import kotlin.Unit;
+
+/**
+ * Frame timing while the relapse dialog is open over the ticking timer, live RenderEffect
+ * blur vs the static snapshot backdrop:
+ * ./gradlew :benchmark:connectedBenchmarkAndroidTest
+ * Only the app's benchmark build type reads the "blurMode" extra; release builds always use
+ * SNAPSHOT.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BlurBenchmark {
+
+    private static final String TARGET_PACKAGE = "com.gratus.retrack";
+    private static final int ITERATIONS = 5;
+    private static final long TIMEOUT_MS = 5_000;
+    private static final long DIALOG_OPEN_MS = 5_000; // A handful of timer ticks
+
+    private static final BySelector ACTION_BUTTON = By.res(TARGET_PACKAGE, "start_relapseButton");
+    private static final BySelector DIALOG = By.res(TARGET_PACKAGE, "reason_input");
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void liveBlur() {
+        measureDialog("LIVE");
+    }
+
+    @Test
+    public void snapshotBlur() {
+        measureDialog("SNAPSHOT");
+    }
+
+    private void measureDialog(String blurMode) {
+        List<Metric> metrics = Collections.singletonList(new FrameTimingMetric());
+        benchmarkRule.measureRepeated(
+                TARGET_PACKAGE,
+                metrics,
+                CompilationMode.DEFAULT,
+                null,
+                ITERATIONS,
+                scope -> {
+                    Intent intent = new Intent();
+                    intent.setClassName(TARGET_PACKAGE, TARGET_PACKAGE + ".MainActivity");
+                    intent.putExtra("blurMode", blurMode);
+                    scope.startActivityAndWait(intent);
+                    startJourneyIfNeeded(scope.getDevice());
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    UiDevice device = scope.getDevice();
+                    // Once started, the same button opens the relapse dialog
+                    device.findObject(ACTION_BUTTON).click();
+                    device.wait(Until.hasObject(DIALOG), TIMEOUT_MS);
+                    device.waitForIdle();
+                    sleep(DIALOG_OPEN_MS);
+                    // First back may only close the keyboard
+                    while (device.hasObject(DIALOG)) {
+                        device.pressBack();
+                        device.waitForIdle();
+                    }
+                    return Unit.INSTANCE;
+                });
+    }
+
+    private static void startJourneyIfNeeded(UiDevice device) {
+        UiObject2 button = device.wait(Until.findObject(ACTION_BUTTON), TIMEOUT_MS);
+        if ("Start Journey".contentEquals(button.getText())) {
+            button.click();
+            device.waitForIdle();
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
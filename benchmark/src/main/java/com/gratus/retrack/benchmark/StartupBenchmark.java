@@ -0,0 +1,77 @@
+package com.gratus.retrack.benchmark;
+
+import androidx.annotation.OptIn;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.ExperimentalMetricApi;
+import androidx.benchmark.macro.Metric;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.TraceSectionMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import kotlin.Unit;
+
+/**
+ * Cold and warm start of MainActivity, on a device or emulator:
+ * ./gradlew :benchmark:connectedBenchmarkAndroidTest
+ * Reports time to initial and full display plus each StartupTrace phase.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    private static final String TARGET_PACKAGE = "com.gratus.retrack";
+    private static final int ITERATIONS = 10;
+
+    // Must match the StartupTrace.begin() phases in MainActivity.onCreate
+    private static final String[] PHASES = {
+            "theme", "superOnCreate", "inflate", "bindViews", "restoreState", "themeButtons", "firstData"
+    };
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void coldStart() {
+        measureStartup(StartupMode.COLD);
+    }
+
+    @Test
+    public void warmStart() {
+        measureStartup(StartupMode.WARM);
+    }
+
+    private void measureStartup(StartupMode mode) {
+        benchmarkRule.measureRepeated(
+                TARGET_PACKAGE,
+                metrics(),
+                CompilationMode.DEFAULT,
+                mode,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait();
+                    return Unit.INSTANCE;
+                });
+    }
+
+    @OptIn(markerClass = ExperimentalMetricApi.class)
+    private static List<Metric> metrics() {
+        List<Metric> metrics = new ArrayList<>();
+        metrics.add(new StartupTimingMetric());
+        for (String phase : PHASES) {
+            metrics.add(new TraceSectionMetric("ReTrack." + phase));
+        }
+        return metrics;
+    }
+}
@@ -24,3 +24,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "CheckPoint"
 include(":app")
+include(":benchmark")